@@ -0,0 +1,33 @@
+package benchmarks;
+
+import grammar.GrammarWrapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/** Reading a grammar file: tokenizing the productions and computing the FIRST and FOLLOW sets. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GrammarBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public Grammars.Size size;
+
+    private String file;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Grammars.write(size, Files.createTempDirectory("grammar"), "grammar");
+    }
+
+    @Benchmark
+    public GrammarWrapper load(){
+        return new GrammarWrapper(file);
+    }
+}
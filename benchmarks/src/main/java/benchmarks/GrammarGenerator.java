@@ -0,0 +1,333 @@
+package benchmarks;
+
+import constants.Status;
+import constants.TableMode;
+import grammar.GrammarWrapper;
+import parser.LRParserWrapper;
+import parser.Parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/** Synthetic grammars, in the format read by <code>Grammar(String filename)</code>, and sentences
+ * derived from them.
+ * <p>The nonterminals <code>N0 N1 ...</code> are split in {@link #depth} layers, <code>N0</code> (the
+ * start symbol) being in the first one. The bodies of a layer use the nonterminals of the next layer,
+ * the last layer using the first one, so every nonterminal is recursive through a cycle of
+ * <code>depth</code> nonterminals. Every nonterminal has:</p>
+ * <li>a base production, with terminals only, so every nonterminal derives a sentence;</li>
+ * <li>unless {@link #recursion} is <code>NONE</code>, a directly left (<code>A : Ak...</code>) or
+ * right (<code>A : k...A</code>) recursive production;</li>
+ * <li>the other productions, with {@link #length} symbols each, terminals or next-layer nonterminals;</li>
+ * <li>an ε-production, for a {@link #nullable} fraction of the nonterminals.</li>
+ * <p>When {@link #deterministic}, every production starts with (or, for left recursion, follows its
+ * left side with) its own keyword terminal <code>k0 k1 ...</code>, which makes the grammar LR(1) as long
+ * as no nullable nonterminal can be followed by its own keywords. Otherwise symbols are drawn anywhere
+ * and the grammar usually has conflicts. The other terminals are <code>t0 t1 ...</code>.</p>
+ * <p>The same parameters and {@link #seed} always give the same grammar and sentences.</p>
+ */
+public class GrammarGenerator {
+
+    public enum Recursion { LEFT, RIGHT, NONE }
+
+    public int nonterminals = 10;
+
+    /** Terminals besides the keywords */
+    public int terminals = 5;
+
+    /** Productions of every nonterminal, besides the ε-production */
+    public int productions = 3;
+
+    /** Symbols of a body, besides the keyword */
+    public int length = 3;
+
+    /** Number of layers, the length of the indirect recursion cycles */
+    public int depth = 3;
+
+    /** Fraction of the nonterminals having an ε-production */
+    public double nullable = 0.0;
+
+    public Recursion recursion = Recursion.RIGHT;
+
+    public boolean deterministic = true;
+
+    public long seed = 1;
+
+    /** Bodies of every nonterminal, as symbol names */
+    private ArrayList<ArrayList<String[]>> bodies;
+
+    private int[] minimumLengths;
+
+    private int keywordCount;
+
+    /** @return the grammar file content */
+    public String grammar(){
+        generate();
+        StringBuilder result = new StringBuilder();
+        for(int i = 0; i < nonterminals; i++)
+            result.append(i == 0 ? "" : " ").append(nonterminal(i));
+        result.append("\n");
+        for(int i = 0; i < terminals; i++)
+            result.append(i == 0 ? "" : " ").append("t").append(i);
+        for(int i = 0; i < keywords(); i++)
+            result.append(" k").append(i);
+        result.append("\n");
+        for(int i = 0; i < nonterminals; i++){
+            result.append(nonterminal(i)).append(" :");
+            ArrayList<String[]> alternatives = bodies.get(i);
+            for(int p = 0; p < alternatives.size(); p++)
+                result.append(p == 0 ? " " : " | ").append(String.join("", alternatives.get(p)));
+            result.append("\n");
+        }
+        result.append(nonterminal(0)).append("\n");
+        return result.toString();
+    }
+
+    /** Writes the grammar to <code>file</code>. */
+    public void write(Path file) throws IOException {
+        Files.writeString(file, grammar());
+    }
+
+    /** Derives a random sentence of <code>length</code> tokens, or as close to it as the grammar allows,
+     * separated by spaces.
+     */
+    public String accepted(int length, Random random){
+        generate();
+        StringBuilder result = new StringBuilder();
+        ArrayDeque<String> symbols = new ArrayDeque<>();
+        ArrayDeque<Integer> budgets = new ArrayDeque<>();
+        symbols.push(nonterminal(0));
+        budgets.push(Math.max(length, minimumLengths[0]));
+        while(!symbols.isEmpty()){
+            String symbol = symbols.pop();
+            int budget = budgets.pop();
+            if(!symbol.startsWith("N")){
+                result.append(result.length() == 0 ? "" : " ").append(symbol);
+                continue;
+            }
+            String[] body = choose(Integer.parseInt(symbol.substring(1)), budget, random);
+            //the budget left once every symbol has its minimum goes to one nonterminal of the body
+            int extra = budget - minimumLength(body);
+            int receiver = -1;
+            int candidates = 0;
+            for(int s = 0; s < body.length; s++)
+                if(body[s].startsWith("N") && random.nextInt(++candidates) == 0)
+                    receiver = s;
+            for(int s = body.length - 1; s >= 0; s--){
+                symbols.push(body[s]);
+                budgets.push(minimumLength(body[s]) + (s == receiver ? extra : 0));
+            }
+        }
+        return result.toString();
+    }
+
+    /** Mutates sentences of about <code>length</code> tokens (deleting, inserting or swapping tokens)
+     * until <code>parser</code> rejects one, which needs the parser to be exact for the grammar, eg.
+     * built in <code>TableMode.LR1</code> mode for a deterministic grammar.
+     * @return the rejected sentence, or <code>null</code> if no mutation was rejected
+     */
+    public String rejected(int length, Parser parser, Random random){
+        for(int attempt = 0; attempt < 100; attempt++){
+            ArrayList<String> tokens = new ArrayList<>(Arrays.asList(accepted(length, random).split(" ")));
+            switch(random.nextInt(3)){
+                case 0 -> tokens.remove(random.nextInt(tokens.size()));
+                case 1 -> tokens.add(random.nextInt(tokens.size() + 1), randomTerminal(random));
+                default -> {
+                    if(tokens.size() < 2)
+                        continue;
+                    int i = random.nextInt(tokens.size() - 1);
+                    tokens.set(i, tokens.set(i + 1, tokens.get(i)));
+                }
+            }
+            String sentence = String.join(" ", tokens);
+            if(parser.parse(sentence) == Status.REJECTED)
+                return sentence;
+        }
+        return null;
+    }
+
+    /** Picks a body of <code>nonterminal</code> fitting in <code>budget</code> tokens: a random body able
+     * to grow if the budget is larger than the minimum, the longest fitting body otherwise.
+     */
+    private String[] choose(int nonterminal, int budget, Random random){
+        ArrayList<String[]> growing = new ArrayList<>();
+        String[] longest = null;
+        for(String[] body: bodies.get(nonterminal)){
+            int minimum = minimumLength(body);
+            if(minimum > budget)
+                continue;
+            if(minimum < budget && Arrays.stream(body).anyMatch(symbol -> symbol.startsWith("N")))
+                growing.add(body);
+            if(longest == null || minimum > minimumLength(longest))
+                longest = body;
+        }
+        if(!growing.isEmpty())
+            return growing.get(random.nextInt(growing.size()));
+        return longest;
+    }
+
+    private String randomTerminal(Random random){
+        int count = terminals + keywords();
+        int i = random.nextInt(count);
+        return i < terminals ? "t" + i : "k" + (i - terminals);
+    }
+
+    private void generate(){
+        if(bodies != null)
+            return;
+        if(nonterminals < 1 || depth < 1 || productions < 1 || terminals < 1)
+            throw new IllegalArgumentException("nonterminals, depth, productions and terminals must be positive");
+        Random random = new Random(seed);
+        int layers = Math.min(depth, nonterminals);
+        int[] nextReferenced = new int[layers]; //round robin, so every nonterminal of a layer is used
+        int keyword = 0;
+        bodies = new ArrayList<>();
+        for(int i = 0; i < nonterminals; i++){
+            int next = (layer(i, layers) + 1) % layers;
+            ArrayList<String[]> alternatives = new ArrayList<>();
+            for(int p = 0; p < productions; p++){
+                ArrayList<String> body = new ArrayList<>();
+                if(p == 0){ //base production
+                    for(int s = 0; s < Math.max(length, 1); s++)
+                        body.add("t" + random.nextInt(terminals));
+                }
+                else if(p == 1 && recursion != Recursion.NONE){
+                    for(int s = 0; s < length; s++)
+                        body.add("t" + random.nextInt(terminals));
+                    if(recursion == Recursion.LEFT)
+                        body.add(0, nonterminal(i));
+                    else
+                        body.add(nonterminal(i));
+                }
+                else{
+                    for(int s = 0; s < length; s++){
+                        if(random.nextBoolean()){
+                            int first = firstOfLayer(next, layers);
+                            int size = firstOfLayer(next + 1, layers) - first;
+                            body.add(nonterminal(first + nextReferenced[next]++ % size));
+                        }
+                        else
+                            body.add("t" + random.nextInt(terminals));
+                    }
+                    if(body.stream().noneMatch(symbol -> symbol.startsWith("t")))
+                        body.add(random.nextInt(body.size() + 1), "t" + random.nextInt(terminals));
+                }
+                if(deterministic){
+                    int at = p == 1 && recursion == Recursion.LEFT ? 1 : 0;
+                    body.add(at, "k" + keyword++);
+                }
+                alternatives.add(body.toArray(new String[0]));
+            }
+            if(random.nextDouble() < nullable)
+                alternatives.add(new String[0]);
+            bodies.add(alternatives);
+        }
+        keywordCount = keyword;
+        computeMinimumLengths();
+    }
+
+    private int keywords(){
+        generate();
+        return keywordCount;
+    }
+
+    private int layer(int nonterminal, int layers){
+        return (int) ((long) nonterminal * layers / nonterminals);
+    }
+
+    private int firstOfLayer(int layer, int layers){
+        return (int) (((long) layer * nonterminals + layers - 1) / layers);
+    }
+
+    /** Shortest sentence every nonterminal derives, by iterating until nothing gets shorter. */
+    private void computeMinimumLengths(){
+        minimumLengths = new int[nonterminals];
+        Arrays.fill(minimumLengths, Integer.MAX_VALUE / 2);
+        boolean changed = true;
+        while(changed){
+            changed = false;
+            for(int i = 0; i < nonterminals; i++)
+                for(String[] body: bodies.get(i)){
+                    int length = minimumLength(body);
+                    if(length < minimumLengths[i]){
+                        minimumLengths[i] = length;
+                        changed = true;
+                    }
+                }
+        }
+    }
+
+    private int minimumLength(String[] body){
+        int result = 0;
+        for(String symbol: body)
+            result = Math.min(Integer.MAX_VALUE / 2, result + minimumLength(symbol));
+        return result;
+    }
+
+    private int minimumLength(String symbol){
+        return symbol.startsWith("N") ? minimumLengths[Integer.parseInt(symbol.substring(1))] : 1;
+    }
+
+    private static String nonterminal(int i){
+        return "N" + i;
+    }
+
+    /** Writes a grammar file and, optionally, sentences next to it.
+     * <p>Usage: <code>GrammarGenerator file.in [parameter=value ...] [sentences=count] [sentenceLength=tokens]</code>,
+     * the parameters being the public fields. Accepted sentences go to <code>file.accepted</code>, one
+     * per line, and rejected ones to <code>file.rejected</code>.</p>
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length == 0){
+            System.out.println("Usage: GrammarGenerator file.in [nonterminals=10] [terminals=5] [productions=3] [length=3] "
+                    + "[depth=3] [nullable=0.0] [recursion=RIGHT] [deterministic=true] [seed=1] [sentences=0] [sentenceLength=100]");
+            return;
+        }
+        GrammarGenerator generator = new GrammarGenerator();
+        int sentences = 0;
+        int sentenceLength = 100;
+        for(int i = 1; i < args.length; i++){
+            String[] option = args[i].split("=", 2);
+            if(option.length != 2)
+                throw new IllegalArgumentException("Expected parameter=value, got " + args[i]);
+            switch(option[0]){
+                case "nonterminals" -> generator.nonterminals = Integer.parseInt(option[1]);
+                case "terminals" -> generator.terminals = Integer.parseInt(option[1]);
+                case "productions" -> generator.productions = Integer.parseInt(option[1]);
+                case "length" -> generator.length = Integer.parseInt(option[1]);
+                case "depth" -> generator.depth = Integer.parseInt(option[1]);
+                case "nullable" -> generator.nullable = Double.parseDouble(option[1]);
+                case "recursion" -> generator.recursion = Recursion.valueOf(option[1].toUpperCase());
+                case "deterministic" -> generator.deterministic = Boolean.parseBoolean(option[1]);
+                case "seed" -> generator.seed = Long.parseLong(option[1]);
+                case "sentences" -> sentences = Integer.parseInt(option[1]);
+                case "sentenceLength" -> sentenceLength = Integer.parseInt(option[1]);
+                default -> throw new IllegalArgumentException("Unknown parameter " + option[0]);
+            }
+        }
+        Path file = Path.of(args[0]);
+        generator.write(file);
+        if(sentences == 0)
+            return;
+        Random random = new Random(generator.seed);
+        List<String> accepted = new ArrayList<>();
+        for(int i = 0; i < sentences; i++)
+            accepted.add(generator.accepted(sentenceLength, random));
+        String name = file.toString().replaceFirst("\\.in$", "");
+        Files.write(Path.of(name + ".accepted"), accepted);
+        LRParserWrapper parser = new LRParserWrapper(new GrammarWrapper(file.toString()), TableMode.LR1);
+        List<String> rejected = new ArrayList<>();
+        for(int i = 0; i < sentences; i++){
+            String sentence = generator.rejected(sentenceLength, parser, random);
+            if(sentence != null)
+                rejected.add(sentence);
+        }
+        Files.write(Path.of(name + ".rejected"), rejected);
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/** Grammars and inputs used by the benchmarks.
+ * <p>Every grammar is an expression grammar with <code>levels</code> precedence levels, the way
+ * programming language grammars are usually written:</p>
+ * <p><code>N0 : N0o0N1 | N1</code>, ..., <code>N[levels-1] : (N0) | id</code></p>
+ * <p>The number of states and symbols grows linearly with the levels, the closure of a state after an
+ * opening parenthesis holding every level.</p>
+ */
+public final class Grammars {
+
+    /** Grammar sizes, by number of precedence levels. */
+    public enum Size {
+        SMALL(3), MEDIUM(50), LARGE(300);
+
+        final int levels;
+
+        Size(int levels){
+            this.levels = levels;
+        }
+    }
+
+    private Grammars(){
+
+    }
+
+    /** Writes the grammar of <code>size</code> to <code>directory/name.in</code>.
+     * @return the path of the grammar file
+     */
+    static String write(Size size, Path directory, String name) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(name + ".in");
+        Files.writeString(file, grammar(size.levels));
+        return file.toString();
+    }
+
+    static String grammar(int levels){
+        StringBuilder result = new StringBuilder();
+        for(int i = 0; i < levels; i++)
+            result.append(i == 0 ? "" : " ").append("N").append(i);
+        result.append("\n( ) id");
+        for(int i = 0; i < levels - 1; i++)
+            result.append(" o").append(i);
+        result.append("\n");
+        for(int i = 0; i < levels - 1; i++)
+            result.append("N").append(i).append(" : N").append(i).append("o").append(i).append("N").append(i + 1)
+                    .append(" | N").append(i + 1).append("\n");
+        result.append("N").append(levels - 1).append(" : (N0) | id\n");
+        result.append("N0\n");
+        return result.toString();
+    }
+
+    /** @return an accepted input of about <code>tokens</code> tokens, operators and parentheses
+     * being drawn with a fixed seed
+     */
+    static String sentence(int levels, int tokens){
+        Random random = new Random(42);
+        StringBuilder result = new StringBuilder();
+        int open = 0;
+        int count = 0;
+        result.append("id");
+        while(count < tokens){
+            result.append(" o").append(random.nextInt(levels - 1)).append(" ");
+            if(random.nextInt(8) == 0){
+                result.append("( ");
+                open++;
+            }
+            result.append("id");
+            if(open > 0 && random.nextInt(4) == 0){
+                result.append(" )");
+                open--;
+            }
+            count += 2;
+        }
+        while(open-- > 0)
+            result.append(" )");
+        return result.toString();
+    }
+}
@@ -0,0 +1,177 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/** Load generator for {@link server.ParseServer}: opens <code>connections</code> connections, each sending
+ * <code>records</code> inputs taken in turn from a file, with at most <code>window</code> of them waiting
+ * for their status, then prints the throughput and the latency percentiles.
+ * <p>Usage: <code>LoadGenerator inputs.txt [port=7070 | socket=path] [connections=4] [records=100000]
+ * [window=256]</code>. The inputs can be generated with {@link GrammarGenerator}, eg. the
+ * <code>.accepted</code> file. A window of 1 gives the latency of one round trip per record.</p>
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if(args.length == 0){
+            System.out.println("Usage: LoadGenerator inputs.txt [port=7070 | socket=path] [connections=4] [records=100000] [window=256]");
+            return;
+        }
+        SocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 7070);
+        int connections = 4;
+        int records = 100000;
+        int window = 256;
+        for(int i = 1; i < args.length; i++){
+            String[] option = args[i].split("=", 2);
+            if(option.length != 2)
+                throw new IllegalArgumentException("Expected parameter=value, got " + args[i]);
+            switch(option[0]){
+                case "port" -> address = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(option[1]));
+                case "socket" -> address = UnixDomainSocketAddress.of(Path.of(option[1]));
+                case "connections" -> connections = Integer.parseInt(option[1]);
+                case "records" -> records = Integer.parseInt(option[1]);
+                case "window" -> window = Integer.parseInt(option[1]);
+                default -> throw new IllegalArgumentException("Unknown parameter " + option[0]);
+            }
+        }
+        List<byte[]> inputs = new ArrayList<>();
+        for(String line: Files.readAllLines(Path.of(args[0])))
+            inputs.add((line + "\n").getBytes(StandardCharsets.UTF_8));
+        if(inputs.isEmpty())
+            throw new IllegalArgumentException(args[0] + " has no inputs");
+
+        Connection[] clients = new Connection[connections];
+        long start = System.nanoTime();
+        for(int i = 0; i < connections; i++){
+            clients[i] = new Connection(address, inputs, records, window, i);
+            clients[i].start();
+        }
+        long[] latencies = new long[connections * records];
+        long accepted = 0;
+        for(int i = 0; i < connections; i++){
+            clients[i].join();
+            if(clients[i].failure != null)
+                throw clients[i].failure;
+            System.arraycopy(clients[i].latencies, 0, latencies, i * records, records);
+            accepted += clients[i].accepted;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+        System.out.printf("%d records in %.2f s, %.0f records/s, %d accepted%n",
+                latencies.length, seconds, latencies.length / seconds, accepted);
+        System.out.printf("latency p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n",
+                percentile(latencies, 0.5), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[latencies.length - 1] / 1e3);
+    }
+
+    private static double percentile(long[] sorted, double fraction){
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))] / 1e3;
+    }
+
+    /** One connection: this thread reads the statuses while a second one sends the inputs. The send times
+     * of the records waiting for their status are queued, the queue's capacity being the window.
+     */
+    private static final class Connection extends Thread {
+
+        private final SocketChannel channel;
+
+        private final List<byte[]> inputs;
+
+        private final int records;
+
+        private final int offset;
+
+        private final BlockingQueue<Long> sent;
+
+        final long[] latencies;
+
+        long accepted;
+
+        volatile IOException failure;
+
+        Connection(SocketAddress address, List<byte[]> inputs, int records, int window, int offset) throws IOException {
+            super("load-" + offset);
+            channel = address instanceof UnixDomainSocketAddress
+                    ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                    : SocketChannel.open();
+            channel.connect(address);
+            this.inputs = inputs;
+            this.records = records;
+            this.offset = offset;
+            sent = new ArrayBlockingQueue<>(window);
+            latencies = new long[records];
+        }
+
+        @Override
+        public void run(){
+            Thread writer = new Thread(this::send, getName() + "-writer");
+            writer.setDaemon(true);
+            writer.start();
+            try(channel) {
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                int received = 0;
+                while(received < records){
+                    if(channel.read(buffer) == -1)
+                        throw new IOException("The server closed the connection after " + received + " records");
+                    buffer.flip();
+                    //every status is 9 bytes, ACCEPTED\n or REJECTED\n
+                    while(buffer.remaining() >= 9){
+                        if(buffer.get(buffer.position()) == 'A')
+                            accepted++;
+                        buffer.position(buffer.position() + 9);
+                        latencies[received++] = System.nanoTime() - sent.take();
+                    }
+                    buffer.compact();
+                }
+                writer.join();
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                failure = new IOException(e);
+            }
+        }
+
+        private void send(){
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            try {
+                for(int i = 0; i < records; i++){
+                    byte[] input = inputs.get((offset + i) % inputs.size());
+                    if(buffer.remaining() < input.length || sent.remainingCapacity() == 0){
+                        flush(buffer);
+                        if(input.length > buffer.capacity())
+                            buffer = ByteBuffer.allocate(input.length);
+                    }
+                    //blocks while the window is full
+                    sent.put(System.nanoTime());
+                    buffer.put(input);
+                }
+                flush(buffer);
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                failure = new IOException(e);
+            }
+        }
+
+        private void flush(ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            while(buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+    }
+}
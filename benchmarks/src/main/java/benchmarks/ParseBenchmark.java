@@ -0,0 +1,102 @@
+package benchmarks;
+
+import constants.Status;
+import grammar.GrammarWrapper;
+import org.openjdk.jmh.annotations.*;
+import parser.GLRParserWrapper;
+import parser.IncrementalParse;
+import parser.LRParserWrapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Parse throughput, on short inputs (parser and per-call overhead) and long ones (the parsing loop), of
+ * small edits of the input parsed again incrementally, and of batches of inputs sharing the input as prefix.
+ * The generalized parser parses the same deterministic grammars, never leaving its deterministic fast path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public Grammars.Size size;
+
+    /** Number of tokens of the input */
+    @Param({"16", "100000"})
+    public int tokens;
+
+    private LRParserWrapper parser;
+
+    private GLRParserWrapper generalized;
+
+    private String input;
+
+    /** Added after an operand in the middle of the input, then removed, by every other edit */
+    private static final String OPERAND = " o0 id";
+
+    private IncrementalParse document;
+
+    private int offset;
+
+    private boolean added;
+
+    /** Inputs of the batch benchmarks */
+    private static final int BATCH = 100;
+
+    private List<String> batch;
+
+    @Setup
+    public void setup() throws IOException {
+        String file = Grammars.write(size, Files.createTempDirectory("parse"), "grammar");
+        parser = new LRParserWrapper(new GrammarWrapper(file));
+        generalized = new GLRParserWrapper(new GrammarWrapper(file));
+        input = Grammars.sentence(size.levels, tokens);
+        if(parser.parse(input) != Status.ACCEPTED)
+            throw new IllegalStateException("The benchmark input is rejected");
+        document = parser.parseIncrementally(input);
+        offset = input.indexOf("id", input.length() / 2) + 2;
+        batch = new ArrayList<>();
+        for(int i = 0; i < BATCH; i++){
+            StringBuilder tail = new StringBuilder(input);
+            for(int bits = i + BATCH; bits > 1; bits >>= 1)
+                tail.append(" o").append(bits & 1).append(" id");
+            batch.add(tail.toString());
+        }
+    }
+
+    @Benchmark
+    public Status parse(){
+        return parser.parse(input);
+    }
+
+    @Benchmark
+    public Status parseGeneralized(){
+        return generalized.parse(input);
+    }
+
+    /** <code>BATCH</code> inputs, the input followed by a few different operands. */
+    @Benchmark
+    public List<Status> parseAll(){
+        return parser.parseAll(batch);
+    }
+
+    /** The same inputs, the input they all start with being parsed once. */
+    @Benchmark
+    public List<Status> parseAllSharingPrefixes(){
+        return parser.parseAllSharingPrefixes(batch);
+    }
+
+    /** An operand added in the middle of the input, or removed, then the input parsed again incrementally. */
+    @Benchmark
+    public Status edit(){
+        added = !added;
+        return added ? document.edit(offset, 0, OPERAND) : document.edit(offset, OPERAND.length(), "");
+    }
+}
@@ -0,0 +1,88 @@
+package benchmarks;
+
+import constants.Status;
+import grammar.GrammarWrapper;
+import org.openjdk.jmh.annotations.*;
+import parser.LRParserWrapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Construction and parse cost over generated grammars, to be read as curves over the parameters,
+ * eg. <code>-p nonterminals=25,50,100,200,400 -p recursion=LEFT</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScalingBenchmark {
+
+    @Param({"25", "100", "400"})
+    public int nonterminals;
+
+    @Param({"3"})
+    public int productions;
+
+    @Param({"4"})
+    public int depth;
+
+    @Param({"0.0", "0.2"})
+    public double nullable;
+
+    @Param({"LEFT", "RIGHT"})
+    public GrammarGenerator.Recursion recursion;
+
+    /** Number of tokens of the parsed sentence */
+    @Param({"10000"})
+    public int tokens;
+
+    private String file;
+
+    private LRParserWrapper parser;
+
+    private String sentence;
+
+    private GrammarWrapper grammar;
+
+    @Setup
+    public void setup() throws IOException {
+        GrammarGenerator generator = new GrammarGenerator();
+        generator.nonterminals = nonterminals;
+        generator.productions = productions;
+        generator.depth = depth;
+        generator.nullable = nullable;
+        generator.recursion = recursion;
+        Path directory = Files.createTempDirectory("scaling");
+        file = directory.resolve("grammar.in").toString();
+        generator.write(Path.of(file));
+        parser = new LRParserWrapper(new GrammarWrapper(file));
+        sentence = generator.accepted(tokens, new Random(42));
+        if(parser.parse(sentence) != Status.ACCEPTED)
+            System.out.println("The generated grammar has conflicts, the sentence is rejected: " + parser.getConflicts().size() + " conflicts");
+    }
+
+    @Setup(Level.Invocation)
+    public void readGrammar(){
+        grammar = new GrammarWrapper(file);
+    }
+
+    @Benchmark
+    public GrammarWrapper loadGrammar(){
+        return new GrammarWrapper(file);
+    }
+
+    @Benchmark
+    public LRParserWrapper buildTable(){
+        return new LRParserWrapper(grammar);
+    }
+
+    @Benchmark
+    public Status parse(){
+        return parser.parse(sentence);
+    }
+}
@@ -0,0 +1,110 @@
+package benchmarks;
+
+import constants.TableFormat;
+import constants.TableMode;
+import grammar.GrammarWrapper;
+import org.openjdk.jmh.annotations.*;
+import parser.LRParserWrapper;
+import parser.TableGenerator;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/** Building the parser's table from the grammar, reading it from a table file and storing it.
+ * <p>Every scenario has its own directory, since the parser loads the table files it finds next to
+ * the grammar. The grammar is read outside of the measurement of <code>build</code>, the other scenarios
+ * read it as part of starting a parser, except <code>classpath</code> which doesn't need it.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TableBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public Grammars.Size size;
+
+    @Param({"SLR", "LALR", "LR1"})
+    public TableMode mode;
+
+    private String build;
+
+    private String text;
+
+    private String binary;
+
+    private Path cache;
+
+    private ClassLoader classpath;
+
+    private LRParserWrapper parser;
+
+    private GrammarWrapper grammar;
+
+    @Setup
+    public void setup() throws IOException {
+        Path root = Files.createTempDirectory("table");
+        build = Grammars.write(size, root.resolve("build"), "grammar");
+        text = Grammars.write(size, root.resolve("text"), "grammar");
+        binary = Grammars.write(size, root.resolve("binary"), "grammar");
+        new LRParserWrapper(new GrammarWrapper(text), mode).storeParserTable(TableFormat.TEXT);
+        new LRParserWrapper(new GrammarWrapper(binary), mode).storeParserTable(TableFormat.BINARY);
+        parser = new LRParserWrapper(new GrammarWrapper(build), mode);
+        cache = root.resolve("cache");
+        new LRParserWrapper(new GrammarWrapper(build), mode, cache);
+        Path resources = root.resolve("classpath");
+        TableGenerator.generate(build, mode, resources);
+        classpath = new URLClassLoader(new URL[]{resources.toUri().toURL()}, null);
+    }
+
+    @Setup(Level.Invocation)
+    public void readGrammar(){
+        grammar = new GrammarWrapper(build);
+    }
+
+    /** Item sets and table, <code>collection()</code> and <code>createTable()</code>. */
+    @Benchmark
+    public LRParserWrapper build(){
+        return new LRParserWrapper(grammar, mode);
+    }
+
+    /** The table read from the <code>.out</code> file. */
+    @Benchmark
+    public LRParserWrapper readText(){
+        return new LRParserWrapper(new GrammarWrapper(text), mode);
+    }
+
+    /** The table mapped from the <code>.lrt</code> file. */
+    @Benchmark
+    public LRParserWrapper mapBinary(){
+        return new LRParserWrapper(new GrammarWrapper(binary), mode);
+    }
+
+    /** The table found in the table cache directory by the grammar's hash. */
+    @Benchmark
+    public LRParserWrapper cached(){
+        return new LRParserWrapper(new GrammarWrapper(build), mode, cache);
+    }
+
+    /** The table packaged as a classpath resource by {@link TableGenerator}, without the grammar. */
+    @Benchmark
+    public LRParserWrapper classpath() throws IOException {
+        return LRParserWrapper.fromClasspath(classpath, "grammar.lrt");
+    }
+
+    @Benchmark
+    public void writeText(){
+        parser.storeParserTable(TableFormat.TEXT);
+    }
+
+    @Benchmark
+    public void writeBinary(){
+        parser.storeParserTable(TableFormat.BINARY);
+    }
+}
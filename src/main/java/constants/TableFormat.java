@@ -0,0 +1,9 @@
+package constants;
+
+/** File formats a parser table can be stored in. */
+public enum TableFormat {
+    /** Text matrix, one row per state, cells separated by spaces (<code>.out</code> files) */
+    TEXT,
+    /** Versioned binary file, mapped in memory when loaded (<code>.lrt</code> files) */
+    BINARY
+}
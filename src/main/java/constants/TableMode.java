@@ -0,0 +1,11 @@
+package constants;
+
+/** How an LR parser computes the lookaheads of its reductions. */
+public enum TableMode {
+    /** Reduce on the FOLLOW set of the production's left side, over the LR(0) automaton */
+    SLR,
+    /** Reduce on the LALR(1) lookaheads, computed over the LR(0) automaton */
+    LALR,
+    /** Reduce on the LR(1) lookaheads, over an LR(1) automaton whose compatible states are merged */
+    LR1
+}
@@ -1,13 +1,12 @@
 package grammar;
 
 
+import util.Digraph;
 import util.Pair;
 
-import javax.sound.sampled.Line;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 
 /** Encapsulates parts needed to make a grammar
@@ -38,252 +37,224 @@ public class Grammar {
     protected Grammar(String filename) {
         shortFilename = filename.split("\\.")[0];
         File file = new File(filename);
-        nonterminals = new LinkedHashSet<>();
-        terminals = new LinkedHashSet<>();
-        productions = new ArrayList<>();
+        String startSymbol = null;
         try {
-            Scanner sc = new Scanner(file);
-            String buffer;
-            //Reading nonterminals
-            buffer = sc.nextLine();
-            nonterminals =   new LinkedHashSet<>(Arrays.stream(buffer.split(" ")).toList());
-            //Reading terminals
-            buffer = sc.nextLine();
-            terminals = new LinkedHashSet<>(Arrays.stream(buffer.split(" ")).toList());
-
-            int state = 1;
-            //Reading productions
-            while(sc.hasNextLine()) {
-                buffer = sc.nextLine();
-                String[] splitter = buffer.split(":");
-                if (splitter.length == 1) {
-                    break; // We found the start symbol at the end
-                }
-                else{
-                    String begin = splitter[0];
-                    begin = begin.trim();
-                    splitter[1] = splitter[1].trim();
-                    String[] prods = splitter[1].split("\\|", -1);
-                    for(int i = 0; i < prods.length; i++){
-                        prods[i] = prods[i].trim();
-                        productions.add(new Production(begin, prods[i], state++));
-                    }
-                }
-            }
-            start = buffer;
-
-            firstSet = new HashMap<>();
-            followSet = new HashMap<>();
-
-            computeFirstSets();
-
-            computeFollowSets();
+            startSymbol = read(file);
         }
         catch(FileNotFoundException f){
             System.out.println("The file doesn't exist.");
         }
-    }
+        start = startSymbol;
+        if(start == null){
+            firstSet = Map.of();
+            followSet = Map.of();
+            return;
+        }
 
-    private void computeFollowSets(){
+        computeNullable();
 
-        HashMap<String, Boolean> scouted = new HashMap<>();
+        computeFirstSets();
 
-        for(String symbol: nonterminals){
-            scouted.put(symbol, false);
-            followSet.put(symbol, new LinkedHashSet<>());
-        }
+        computeFollowSets();
 
-        followSet.put(start, findFollow(start, scouted));
+        ArrayList<String> symbols = new ArrayList<>(terminals);
+        symbols.addAll(nonterminals);
+        firstSet = new SymbolSetMap(this, symbols, first, nullable);
+        followSet = new SymbolSetMap(this, new ArrayList<>(nonterminals), follow, null);
+    }
 
-        for(String symbol: nonterminals) {
-            findFollow(symbol, scouted);
+    /** Reads the symbols and the productions of the grammar file.
+     * @return the start symbol
+     */
+    private String read(File file) throws FileNotFoundException {
+        Scanner sc = new Scanner(file);
+        String buffer;
+        //Reading nonterminals
+        buffer = sc.nextLine();
+        nonterminalNames.addAll(Arrays.asList(buffer.split(" ")));
+        //Reading terminals
+        buffer = sc.nextLine();
+        terminalNames.addAll(Arrays.asList(buffer.split(" ")));
+        for(String terminal: terminals)
+            intern(terminal);
+        intern(END);
+        for(String nonterminal: nonterminals)
+            intern(nonterminal);
+        symbolLengths = symbolNames.stream().mapToInt(String::length).filter(length -> length > 0)
+                .distinct().map(length -> -length).sorted().map(length -> -length).toArray();
+
+        int state = 1;
+        //Reading productions
+        while(sc.hasNextLine()) {
+            buffer = sc.nextLine();
+            String[] splitter = buffer.split(":");
+            if (splitter.length == 1) {
+                break; // We found the start symbol at the end
+            }
+            else{
+                String begin = splitter[0];
+                begin = begin.trim();
+                splitter[1] = splitter[1].trim();
+                String[] prods = splitter[1].split("\\|", -1);
+                for(int i = 0; i < prods.length; i++){
+                    prods[i] = prods[i].trim();
+                    addProduction(createProduction(begin, prods[i], state++));
+                }
+            }
         }
-
+        return buffer;
     }
 
-    private LinkedHashSet<String> findFollow(String symbol, HashMap<String, Boolean> scouted){
-
-        LinkedHashSet<String> result = new LinkedHashSet<>();
-
-
-        if(symbol.equals(start)){
-            result.add("$");
+    /** Finds the nonterminals deriving the empty string: a nonterminal is nullable once one of its
+     * productions has only nullable symbols left. Every production counts its symbols not known to be
+     * nullable yet, and each newly nullable nonterminal decrements the counts of the productions using it.
+     */
+    private void computeNullable(){
+        nullable = new BitSet(symbolCount());
+        HashMap<Production, Integer> remaining = new HashMap<>();
+        ArrayDeque<Integer> worklist = new ArrayDeque<>();
+        for(Production production: productions){
+            remaining.put(production, production.length());
+            if(production.length() == 0 && !nullable.get(production.lhs())){
+                nullable.set(production.lhs());
+                worklist.add(production.lhs());
+            }
         }
-
-        if(nonterminals.contains(symbol)){
-            if(scouted.get(symbol))
-                return followSet.get(symbol);
-            scouted.put(symbol, true);
-            ArrayList<Production> productions = getListOfProductionWithNonTerminal(symbol);
-            for(Production prod: productions){
-                int index = prod.result.indexOf(symbol) + symbol.length();
-                if(index == prod.result.length()){
-                    if(!prod.start.equals(symbol))
-                        result.addAll(findFollow(prod.start, scouted));
-                }
-                else{
-                    Pair<String, Integer> terminal = firstTerminal(prod.result, index);
-                    if(terminal.second > index){
-                        String nonTerminal = firstNonTerminal(prod.result, index).first;
-                        LinkedHashSet<String> newSet = new LinkedHashSet<>(firstSet.get(nonTerminal));
-                        boolean hasVoid = newSet.contains("");
-                        newSet.remove("");
-                        result.addAll(newSet);
-                        if(hasVoid){
-                            if(index + nonTerminal.length() == prod.result.length()) {
-                                if (!prod.start.equals(symbol))
-                                    result.addAll(findFollow(prod.start, scouted));
-                            }
-                            else{
-                              String rightSide = prod.result.substring(index + nonTerminal.length());
-                              boolean repeat = true;
-                              int start = 0;
-                              while(repeat){
-                                  Pair<String, Integer> terminal1 = firstTerminal(rightSide,start);
-                                  if(start != terminal1.second){
-                                      String nonterminal1 = firstNonTerminal(rightSide, start).first;
-                                      start += nonterminal1.length();
-                                      if(nonterminal1.isEmpty())
-                                          break;
-                                      newSet = new LinkedHashSet<>(firstSet.get(nonterminal1));
-                                      if (!newSet.contains(""))
-                                          repeat = false;
-                                      if(start == rightSide.length() && newSet.contains("")){
-                                          result.addAll(findFollow(prod.start, scouted));
-                                      }
-                                      newSet.remove("");
-                                      result.addAll(newSet);
-                                      }
-                                  else{
-                                      start += terminal1.first.length();
-                                      result.add(terminal1.first);
-                                      repeat = false;
-                                  }
-                              }
-                            }
-                        }
-                    }
-                    else{
-                        LinkedHashSet<String> newSet  = new LinkedHashSet<>();
-                        newSet.add(terminal.first);
-                        result.addAll(newSet);
-                    }
+        while(!worklist.isEmpty()){
+            int symbol = worklist.poll();
+            for(Production production: productionsUsing(symbol)){
+                int left = remaining.get(production);
+                for(int i = 0; i < production.length(); i++)
+                    if(production.symbol(i) == symbol)
+                        left--;
+                remaining.put(production, left);
+                if(left == 0 && !nullable.get(production.lhs())){
+                    nullable.set(production.lhs());
+                    worklist.add(production.lhs());
                 }
             }
         }
-        if(nonterminals.contains(symbol))
-            followSet.put(symbol, result);
-        return result;
     }
 
+    /** FIRST sets, as terminal ids. For <code>A -> X1 X2 ... Xn</code>, FIRST(A) takes FIRST(Xi) for
+     * every <code>Xi</code> preceded only by nullable symbols. That relation between symbols is solved
+     * by {@link Digraph}, starting from FIRST(t) = {t} for every terminal.
+     */
     private void computeFirstSets(){
-        HashMap<String, Boolean> scouted = new HashMap<>();
-        HashMap<String, Boolean> finished = new HashMap<>();
-        for(String terminal: this.terminals) {
-            LinkedHashSet<String> first = new LinkedHashSet<>();
-            first.add(terminal);
-            firstSet.put(terminal, first);
+        first = new BitSet[symbolCount()];
+        int[][] relation = new int[symbolCount()][];
+        for(int symbol = 0; symbol < first.length; symbol++){
+            first[symbol] = new BitSet(terminalCount());
+            if(isTerminal(symbol))
+                first[symbol].set(symbol);
+            else
+                relation[symbol] = startingSymbols(symbol);
         }
-        for(String symbol : nonterminals) {
-            scouted.put(symbol, false);
-            finished.put(symbol, false);
-            firstSet.put(symbol, new LinkedHashSet<>());
+        Digraph.propagate(relation, first);
+    }
+
+    /** @return the symbols <code>nonterminal</code>'s productions can start with, after nullable symbols */
+    private int[] startingSymbols(int nonterminal){
+        BitSet result = new BitSet();
+        for(Production production: productionsOf(nonterminal))
+            for(int i = 0; i < production.length(); i++){
+                int symbol = production.symbol(i);
+                result.set(symbol);
+                if(!nullable.get(symbol))
+                    break;
+            }
+        return result.stream().toArray();
+    }
+
+    /** FOLLOW sets, as terminal ids (<code>$</code> included). For <code>A -> a B b</code>, FOLLOW(B)
+     * takes FIRST(b), and FOLLOW(A) if <code>b</code> is nullable. That relation between nonterminals
+     * is solved by {@link Digraph}.
+     */
+    private void computeFollowSets(){
+        follow = new BitSet[symbolCount()];
+        for(int symbol = 0; symbol < follow.length; symbol++)
+            follow[symbol] = new BitSet(terminalCount());
+        int startId = symbolId(start);
+        if(startId != -1)
+            follow[startId].set(symbolId(END));
+
+        ArrayList<BitSet> includes = new ArrayList<>();
+        for(int symbol = 0; symbol < follow.length; symbol++)
+            includes.add(new BitSet());
+        for(Production production: productions){
+            for(int i = 0; i < production.length(); i++){
+                int symbol = production.symbol(i);
+                if(isTerminal(symbol))
+                    continue;
+                if(firstOf(production, i + 1, follow[symbol]) && symbol != production.lhs())
+                    includes.get(symbol).set(production.lhs());
+            }
         }
+        int[][] relation = new int[follow.length][];
+        for(int symbol = 0; symbol < follow.length; symbol++)
+            relation[symbol] = includes.get(symbol).stream().toArray();
+        Digraph.propagate(relation, follow);
+    }
 
-        for(String symbol: nonterminals) {
-            if(!finished.get(symbol))
-                firstSet.put(symbol, findFirst(symbol, scouted, finished));
+    /** Adds the terminals of FIRST of the right side of <code>production</code>, from its <code>from</code>-th
+     * symbol on, to <code>into</code>.
+     * @return true if all of those symbols are nullable
+     */
+    public boolean firstOf(Production production, int from, BitSet into){
+        for(int i = from; i < production.length(); i++){
+            int symbol = production.symbol(i);
+            into.or(first[symbol]);
+            if(!nullable.get(symbol))
+                return false;
         }
+        return true;
     }
 
-    private LinkedHashSet<String> findFirst(String input, HashMap<String, Boolean> scouted, HashMap<String, Boolean> finished){
+    private static int indexOf(Production production, int symbol){
+        for(int i = 0; i < production.length(); i++)
+            if(production.symbol(i) == symbol)
+                return i;
+        return -1;
+    }
 
-        LinkedHashSet<String> result = new LinkedHashSet<>();
+    /** @return true if <code>symbol</code> derives the empty string */
+    public boolean isNullable(int symbol){
+        return nullable.get(symbol);
+    }
 
-        if(terminals.contains(input))
-            return firstSet.get(input);
+    /** @return a copy of FIRST(<code>symbol</code>), as terminal ids, without the empty string */
+    public BitSet first(int symbol){
+        return (BitSet) first[symbol].clone();
+    }
 
-        else if(nonterminals.contains(input)){
-            scouted.put(input, true);
-            //get left-recursive and non-left recursive productions
-            ArrayList<Production> nonRecursiveProd = new ArrayList<>();
-            ArrayList<Production> recursiveProd = new ArrayList<>();
-            for(Production prod: getListOfProductionForNonTerminal(input)) {
-                if (isProductionLeftRecursive(input, prod.result))
-                    recursiveProd.add(prod);
-                else nonRecursiveProd.add(prod);
-            }
-            for(Production prod: nonRecursiveProd){
-                result.addAll(findFirst(prod.result, scouted, finished));
-            }
-            for(Production prod: recursiveProd){
-                int position = prod.result.indexOf(input);
-                if(position != 0){
-                    String before = prod.result.substring(0, position);
-                    LinkedHashSet<String> beforeSet = new LinkedHashSet<>();
-                    beforeSet.addAll(findFirst(before, scouted, finished));
-
-                    if(firstSet.get(input).contains("")){
-                        String after = prod.result.substring(position+1, prod.result.length() - 1);
-                        LinkedHashSet<String> afterSet = new LinkedHashSet<>();
-                        afterSet.addAll(findFirst(after, scouted, finished));
-
-                        result.addAll(afterSet);
-                    }
-
-                    result.addAll(beforeSet);
-                }
-                else if(position != prod.result.length() - 1){
-                    if(firstSet.get(input).contains("")){
-                        String after = prod.result.substring(position+1, prod.result.length() - 1);
-                        LinkedHashSet<String> afterSet = new LinkedHashSet<>();
-                        afterSet.addAll(findFirst(after, scouted, finished));
-
-                        result.addAll(afterSet);
-                    }
-                }
-            }
-            firstSet.put(input, result);
-            finished.put(input, true);
-        }
-        else if(input.isEmpty()){
-            result.add("");
-        }
-        else{
-            int start = 0;
-            while(start < input.length()){
-                Pair<String, Integer> terminal = firstTerminal(input, start);
-                if(terminal.second == start){
-                    result.add(terminal.first);
-                    break;
-                }
-                else{
-                    String nonterminal = firstNonTerminal(input, start).first;
-                    start += nonterminal.length();
-                    LinkedHashSet<String> before;
-                    if(finished.get(nonterminal)) {
-                        before = firstSet.get(nonterminal);
-                        result.addAll(before);
-                    }
-                    else{
-                        before = findFirst(nonterminal, scouted, finished);
-                        result.addAll(before);
-                    }
-
-                    if(!before.contains(""))
-                        break;
-                }
-            }
-        }
-        return result;
+    /** @return a copy of FOLLOW(<code>nonterminal</code>), as terminal ids (<code>$</code> included) */
+    public BitSet follow(int nonterminal){
+        return (BitSet) follow[nonterminal].clone();
     }
 
+    /** FIRST(<code>symbol</code>) as terminal ids, not copied. */
+    BitSet firstBits(int symbol){
+        return first[symbol];
+    }
 
+    /** FOLLOW(<code>symbol</code>) as terminal ids, not copied. */
+    BitSet followBits(int symbol){
+        return follow[symbol];
+    }
 
+    /** @return true if the right side <code>production</code> contains <code>symbol</code>
+     * @deprecated right sides are kept as symbol ids, see {@link #productionsUsing(int)} and {@link Production#symbol(int)}
+     */
+    @Deprecated
     public boolean isProductionLeftRecursive(String symbol, String production){
         return production.contains(symbol);
     }
 
+    /** @return the terminal found first in <code>input</code> from <code>start</code> on, and its index, or
+     * <code>""</code> and <code>Integer.MAX_VALUE</code> if there is none
+     * @deprecated right sides are kept as symbol ids, read them with {@link Production#symbol(int)}
+     */
+    @Deprecated
     public Pair<String, Integer> firstTerminal(String input, Integer start){
         String result = "";
         int lowestIndex = Integer.MAX_VALUE;
@@ -296,6 +267,12 @@ public class Grammar {
         }
         return new Pair<>(result, lowestIndex);
     }
+
+    /** @return the nonterminal found first in <code>input</code> from <code>start</code> on, and its index, or
+     * <code>""</code> and <code>Integer.MAX_VALUE</code> if there is none
+     * @deprecated right sides are kept as symbol ids, read them with {@link Production#symbol(int)}
+     */
+    @Deprecated
     public Pair<String, Integer> firstNonTerminal(String input, Integer start){
         String result = "";
         int lowestIndex = Integer.MAX_VALUE;
@@ -309,29 +286,181 @@ public class Grammar {
         return new Pair<>(result, lowestIndex);
     }
 
+    /** @return the productions of <code>nonterminal</code>, from the left side index */
+    public List<Production> productionsOf(int nonterminal){
+        return nonterminal < byLhs.size() ? Collections.unmodifiableList(byLhs.get(nonterminal)) : List.of();
+    }
+
+    /** @return the productions having <code>symbol</code> on their right side, from the occurrence index */
+    public List<Production> productionsUsing(int symbol){
+        return symbol < byOccurrence.size() ? Collections.unmodifiableList(byOccurrence.get(symbol)) : List.of();
+    }
+
+    public ArrayList<Production> getListOfProductionForNonTerminal(int nonterminal){
+        return new ArrayList<>(productionsOf(nonterminal));
+    }
+
+    public ArrayList<Production> getListOfProductionWithNonTerminal(int nonterminal){
+        return new ArrayList<>(productionsUsing(nonterminal));
+    }
+
     public ArrayList<Production> getListOfProductionForNonTerminal(String nonterminal){
-        return
-                (ArrayList<Production>) productions
-                        .stream()
-                        .filter(production -> production.start.equals(nonterminal))
-                        .collect(Collectors.toList());
+        int id = symbolId(nonterminal);
+        return id == -1 ? new ArrayList<>() : getListOfProductionForNonTerminal(id);
     }
 
     public ArrayList<Production> getListOfProductionWithNonTerminal(String nonterminal){
-        return
-                (ArrayList<Production>) productions
-                        .stream()
-                        .filter(production -> production.result.contains(nonterminal))
-                        .collect(Collectors.toList());
+        int id = symbolId(nonterminal);
+        return id == -1 ? new ArrayList<>() : getListOfProductionWithNonTerminal(id);
+    }
+
+    /** Adds <code>production</code> to the grammar, keeping the production indexes up to date. */
+    private void addProduction(Production production){
+        productionList.add(production);
+        index(production);
+    }
+
+    private void index(Production production){
+        while(byLhs.size() < symbolCount()){
+            byLhs.add(new ArrayList<>());
+            byOccurrence.add(new ArrayList<>());
+        }
+        byLhs.get(production.lhs()).add(production);
+        for(int i = 0; i < production.length(); i++){
+            int symbol = production.symbol(i);
+            if(indexOf(production, symbol) == i) //once per production
+                byOccurrence.get(symbol).add(production);
+        }
+    }
+
+    /** Interns <code>symbol</code> in the symbol table, returning its id. */
+    private int intern(String symbol){
+        Integer id = symbolIds.get(symbol);
+        if(id != null)
+            return id;
+        symbolIds.put(symbol, symbolNames.size());
+        symbolNames.add(symbol);
+        return symbolNames.size() - 1;
+    }
+
+    /** The production <code>augmentedStart -> start</code>, numbered 0, that an LR parser builds its
+     * item sets from. It isn't added to the grammar: if <code>augmentedStart</code> isn't a grammar
+     * symbol, its id is {@link #symbolCount()}, the first id after the grammar's symbols.
+     */
+    public Production augmentedProduction(String augmentedStart){
+        int lhs = symbolId(augmentedStart);
+        if(lhs == -1)
+            lhs = symbolCount();
+        return new Production(augmentedStart, start, 0, lhs, new int[]{ symbolId(start) }, new String[]{ start });
     }
 
+    /** @return the id of <code>symbol</code>, or <code>-1</code> if it isn't a grammar symbol */
+    public int symbolId(String symbol){
+        Integer id = symbolIds.get(symbol);
+        return id == null ? -1 : id;
+    }
 
-    public LinkedHashSet<String> nonterminals;
-    public LinkedHashSet<String> terminals;
-    public String start;
-    public ArrayList<Production> productions;
+    public String symbol(int id){
+        return symbolNames.get(id);
+    }
 
-    public HashMap<String, LinkedHashSet<String>> firstSet;
+    /** Symbols are numbered terminals first, then <code>$</code>, then nonterminals. */
+    public int symbolCount(){
+        return symbolNames.size();
+    }
 
-    public HashMap<String, LinkedHashSet<String>> followSet;
+    /** @return true for terminals and <code>$</code> */
+    public boolean isTerminal(int id){
+        return id < terminalCount();
+    }
+
+    /** Number of terminals, counting <code>$</code>. */
+    public int terminalCount(){
+        return terminals.size() + 1;
+    }
+
+    /** Creates a production, splitting <code>result</code> into symbols. */
+    public Production createProduction(String start, String result, int state){
+        int lhs = symbolId(start);
+        if(lhs == -1)
+            throw new IllegalArgumentException("Unknown nonterminal " + start + " in production " + start + " : " + result);
+        ArrayList<String> names = tokenize(result);
+        int[] symbols = new int[names.size()];
+        for(int i = 0; i < symbols.length; i++)
+            symbols[i] = symbolId(names.get(i));
+        return new Production(start, result, state, lhs, symbols, names.toArray(new String[0]));
+    }
+
+    /** Splits the right side of a production into grammar symbols, taking the longest symbol
+     * at each position and skipping white space.
+     */
+    private ArrayList<String> tokenize(String result){
+        ArrayList<String> names = new ArrayList<>();
+        int position = 0;
+        while(position < result.length()){
+            if(Character.isWhitespace(result.charAt(position))){
+                position++;
+                continue;
+            }
+            String best = null;
+            for(int length: symbolLengths){
+                if(position + length > result.length())
+                    continue;
+                String candidate = result.substring(position, position + length);
+                if(symbolIds.containsKey(candidate)){
+                    best = candidate;
+                    break;
+                }
+            }
+            if(best == null)
+                throw new IllegalArgumentException("Unknown symbol at \"" + result.substring(position) + "\" in production " + result);
+            names.add(best);
+            position += best.length();
+        }
+        return names;
+    }
+
+    /** The end of input symbol. */
+    public static final String END = "$";
+
+    private final ArrayList<String> symbolNames = new ArrayList<>();
+
+    private final HashMap<String, Integer> symbolIds = new HashMap<>();
+
+    /** Distinct lengths of the symbol names, longest first, computed once every symbol is interned */
+    private int[] symbolLengths;
+
+    /** Productions by the id of their left side */
+    private final ArrayList<ArrayList<Production>> byLhs = new ArrayList<>();
+
+    /** Productions by the ids of the symbols on their right side */
+    private final ArrayList<ArrayList<Production>> byOccurrence = new ArrayList<>();
+
+    private final LinkedHashSet<String> nonterminalNames = new LinkedHashSet<>();
+
+    private final LinkedHashSet<String> terminalNames = new LinkedHashSet<>();
+
+    private final ArrayList<Production> productionList = new ArrayList<>();
+
+    /** The grammar is read-only once loaded, the collections are unmodifiable views */
+    public final Set<String> nonterminals = Collections.unmodifiableSet(nonterminalNames);
+    public final Set<String> terminals = Collections.unmodifiableSet(terminalNames);
+    public final String start;
+    public final List<Production> productions = Collections.unmodifiableList(productionList);
+
+    private BitSet nullable;
+
+    private BitSet[] first;
+
+    private BitSet[] follow;
+
+    /** FIRST sets by symbol name, <code>""</code> standing for the empty string. A read-only view over
+     * the bitsets the sets are computed on, see {@link #first(int)}.
+     */
+    public final Map<String, List<String>> firstSet;
+
+    /** FOLLOW sets by nonterminal name. A read-only view over the bitsets the sets are computed on,
+     * see {@link #follow(int)}.
+     */
+    public final Map<String, List<String>> followSet;
 }
@@ -1,7 +1,6 @@
 package grammar;
 
-import java.lang.reflect.Array;
-import java.util.ArrayList;
+import java.util.List;
 
 public class GrammarWrapper{
 
@@ -15,12 +14,22 @@ public class GrammarWrapper{
         return grammar;
     }
 
-    public ArrayList<String> getFirstSet(String nonterminal){
-        return (ArrayList<String>) grammar.firstSet.get(nonterminal).stream().toList();
+    /** Returns FIRST(<code>nonterminal</code>) as a read-only view, <code>""</code> standing for the empty string.
+     * An unknown symbol has an empty FIRST set.
+     */
+    public List<String> getFirstSet(String nonterminal){
+        int id = grammar.symbolId(nonterminal);
+        if(id == -1)
+            return List.of();
+        return new SymbolSetView(grammar, grammar.firstBits(id), !grammar.isTerminal(id) && grammar.isNullable(id));
     }
 
-    public ArrayList<String> getFollowSet(String nonterminal){
-        return (ArrayList<String>) grammar.followSet.get(nonterminal).stream().toList();
+    /** Returns FOLLOW(<code>nonterminal</code>) as a read-only view. An unknown symbol has an empty FOLLOW set. */
+    public List<String> getFollowSet(String nonterminal){
+        int id = grammar.symbolId(nonterminal);
+        if(id == -1 || grammar.isTerminal(id))
+            return List.of();
+        return new SymbolSetView(grammar, grammar.followBits(id), false);
     }
 
 }
@@ -2,15 +2,62 @@ package grammar;
 
 import java.util.Objects;
 
+/** A production of a {@link Grammar}, immutable: its symbols are read one at a time. */
 public class Production {
-    public int state;
-    public String start;
-    public String result;
+    private final int state;
+    private final String start;
+    private final String result;
 
-    public Production(String start, String result, int state){
+    /** Id of the left side symbol (see {@link Grammar#symbolId(String)}) */
+    private final int lhs;
+
+    /** Ids of the right side symbols, in order, empty for an ε-production */
+    private final int[] symbols;
+
+    private final String[] names;
+
+    Production(String start, String result, int state, int lhs, int[] symbols, String[] names){
         this.start = start;
         this.result = result;
         this.state = state;
+        this.lhs = lhs;
+        this.symbols = symbols;
+        this.names = names;
+    }
+
+    /** @return the number of the production in its grammar, its reductions' operand */
+    public int getState(){
+        return state;
+    }
+
+    /** @return the name of the left side symbol */
+    public String getStart(){
+        return start;
+    }
+
+    /** @return the right side as written in the grammar, empty for an ε-production */
+    public String getResult(){
+        return result;
+    }
+
+    /** @return the id of the left side symbol (see {@link Grammar#symbolId(String)}) */
+    public int lhs(){
+        return lhs;
+    }
+
+    /** @return the number of symbols on the right side, 0 for an ε-production */
+    public int length(){
+        return symbols.length;
+    }
+
+    /** @return the id of the <code>index</code>-th symbol on the right side */
+    public int symbol(int index){
+        return symbols[index];
+    }
+
+    /** @return the name of the <code>index</code>-th symbol on the right side */
+    public String symbolName(int index){
+        return names[index];
     }
 
     @Override
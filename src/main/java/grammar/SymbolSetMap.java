@@ -0,0 +1,81 @@
+package grammar;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/** Read-only map from symbol names to {@link SymbolSetView}s over per-symbol bitsets. */
+class SymbolSetMap extends AbstractMap<String, List<String>> {
+
+    private final Grammar grammar;
+
+    private final List<String> keys;
+
+    /** Ids of the keys, so a lookup is a hash of the name rather than a scan of <code>keys</code> */
+    private final BitSet keyIds = new BitSet();
+
+    private final BitSet[] sets;
+
+    private final BitSet nullable;
+
+    /** @param nullable symbols whose view ends with <code>""</code>, or null */
+    SymbolSetMap(Grammar grammar, List<String> keys, BitSet[] sets, BitSet nullable){
+        this.grammar = grammar;
+        this.keys = keys;
+        this.sets = sets;
+        this.nullable = nullable;
+        for(String key: keys)
+            keyIds.set(grammar.symbolId(key));
+    }
+
+    @Override
+    public List<String> get(Object key) {
+        int id = id(key);
+        if(id < 0)
+            return null;
+        return new SymbolSetView(grammar, sets[id], nullable != null && nullable.get(id));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return id(key) >= 0;
+    }
+
+    /** @return the id of <code>key</code>, or <code>-1</code> if it isn't a key of the map */
+    private int id(Object key){
+        if(!(key instanceof String symbol))
+            return -1;
+        int id = grammar.symbolId(symbol);
+        return id >= 0 && keyIds.get(id) ? id : -1;
+    }
+
+    @Override
+    public Set<Entry<String, List<String>>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, List<String>>> iterator() {
+                Iterator<String> names = keys.iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return names.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, List<String>> next() {
+                        String name = names.next();
+                        return new SimpleImmutableEntry<>(name, get(name));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package grammar;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/** Read-only list of the symbols whose ids are set in a {@link BitSet}, in id order, optionally
+ * followed by <code>""</code> standing for the empty string. Reads go to the bitset, nothing is copied.
+ */
+class SymbolSetView extends AbstractList<String> {
+
+    private final Grammar grammar;
+
+    private final BitSet symbols;
+
+    private final boolean withEmpty;
+
+    SymbolSetView(Grammar grammar, BitSet symbols, boolean withEmpty){
+        this.grammar = grammar;
+        this.symbols = symbols;
+        this.withEmpty = withEmpty;
+    }
+
+    @Override
+    public String get(int index) {
+        if(index < 0 || index >= size())
+            throw new IndexOutOfBoundsException(index);
+        int id = symbols.nextSetBit(0);
+        for(int i = 0; i < index && id != -1; i++)
+            id = symbols.nextSetBit(id + 1);
+        return id == -1 ? "" : grammar.symbol(id);
+    }
+
+    @Override
+    public int size() {
+        return symbols.cardinality() + (withEmpty ? 1 : 0);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if(!(o instanceof String symbol))
+            return false;
+        if(symbol.isEmpty())
+            return withEmpty;
+        int id = grammar.symbolId(symbol);
+        return id != -1 && symbols.get(id);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+
+            private int next = symbols.nextSetBit(0);
+
+            private boolean emptyLeft = withEmpty;
+
+            @Override
+            public boolean hasNext() {
+                return next != -1 || emptyLeft;
+            }
+
+            @Override
+            public String next() {
+                if(next != -1){
+                    String result = grammar.symbol(next);
+                    next = symbols.nextSetBit(next + 1);
+                    return result;
+                }
+                if(!emptyLeft)
+                    throw new NoSuchElementException();
+                emptyLeft = false;
+                return "";
+            }
+        };
+    }
+}
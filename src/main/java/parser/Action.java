@@ -0,0 +1,84 @@
+package parser;
+
+/** Packed representation of a parser table cell.
+ * <p>An action is a single <code>int</code>: the low 3 bits hold the kind of the action and the
+ * remaining bits hold its operand (the target state for shifts and jumps, the production number
+ * for reductions).</p>
+ * <li><code>d[num]</code> - {@link #SHIFT}</li>
+ * <li><code>r[num]</code> - {@link #REDUCE}</li>
+ * <li><code>[num]</code> - {@link #GOTO}</li>
+ * <li><code>acc</code> - {@link #ACCEPT}</li>
+ * <li><code>x</code> - {@link #ERROR}, always encoded as <code>0</code></li>
+ * <p>The tables of generalized parsers keep every action of a conflict: the cell is a {@link #CONFLICT},
+ * whose operand is the index of the cell's actions in the table (see {@link ParseTable#alternatives(int)}).
+ * Conflicts have no textual format.</p>
+ */
+final class Action {
+
+    static final int ERROR = 0;
+    static final int SHIFT = 1;
+    static final int REDUCE = 2;
+    static final int GOTO = 3;
+    static final int ACCEPT = 4;
+    static final int CONFLICT = 5;
+
+    private static final int KIND_BITS = 3;
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+
+    static final int ACCEPT_ACTION = ACCEPT;
+
+    private Action(){
+
+    }
+
+    static int shift(int state){
+        return (state << KIND_BITS) | SHIFT;
+    }
+
+    static int reduce(int production){
+        return (production << KIND_BITS) | REDUCE;
+    }
+
+    static int jump(int state){
+        return (state << KIND_BITS) | GOTO;
+    }
+
+    static int conflict(int index){
+        return (index << KIND_BITS) | CONFLICT;
+    }
+
+    static int kind(int action){
+        return action & KIND_MASK;
+    }
+
+    static int operand(int action){
+        return action >>> KIND_BITS;
+    }
+
+    /** Decodes a cell written in the textual table format (<code>d5</code>, <code>r6</code>,
+     * <code>8</code>, <code>acc</code> or <code>x</code>).
+     */
+    static int decode(String cell){
+        if(cell.equals("x"))
+            return ERROR;
+        if(cell.equals("acc"))
+            return ACCEPT_ACTION;
+        char c = cell.charAt(0);
+        if(c == 'd')
+            return shift(Integer.parseInt(cell.substring(1)));
+        if(c == 'r')
+            return reduce(Integer.parseInt(cell.substring(1)));
+        return jump(Integer.parseInt(cell));
+    }
+
+    /** Encodes the action in the textual table format, the inverse of {@link #decode(String)}. */
+    static String format(int action){
+        return switch (kind(action)) {
+            case SHIFT -> "d" + operand(action);
+            case REDUCE -> "r" + operand(action);
+            case GOTO -> Integer.toString(operand(action));
+            case ACCEPT -> "acc";
+            default -> "x";
+        };
+    }
+}
@@ -8,11 +8,12 @@ public class Article {
 
     public Production production;
 
+    /** Number of right side symbols before the dot */
     public int dot;
 
     public Article(Production production){
         this.production = production;
-        this.dot = 0; //0 = Before first character
+        this.dot = 0; //0 = Before first symbol
     }
 
     @Override
@@ -30,13 +31,13 @@ public class Article {
 
     @Override
     public String toString(){
-        String result = production.start + " -> ";
-        int i = 0, l =production.result.length();
+        StringBuilder result = new StringBuilder(production.getStart() + " -> ");
+        int i = 0, l = production.length();
         for(;i < dot && i < l; i++)
-            result += production.result.charAt(i);
-        result += '.';
+            result.append(production.symbolName(i));
+        result.append('.');
         for(; i < l; i++)
-            result += production.result.charAt(i);
-        return result;
+            result.append(production.symbolName(i));
+        return result.toString();
     }
 }
@@ -0,0 +1,534 @@
+package parser;
+
+import grammar.Grammar;
+import grammar.Production;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/** The LR automaton of a grammar: its item sets and the transitions between them.
+ * <p>An item (an {@link Article}) is numbered <code>base[production] + dot</code>, so the items of a
+ * production are consecutive. A state is identified by its kernel, the sorted ids of the items
+ * reached by a transition, and numbered in the order it's found, the states being expanded first in,
+ * first out.</p>
+ * <p>The closure of a state only adds items with the dot at the beginning, which only depend on the
+ * nonterminal after the dot. They are computed once per nonterminal, so closing a state is the union
+ * of the kernel with the cached sets of its nonterminals.</p>
+ * <p>{@link #build()} builds the LR(0) automaton. {@link #buildLR1()} builds an LR(1) automaton, whose
+ * kernel items carry lookahead sets: a new state is merged with an existing state having the same
+ * kernel when Pager's weak compatibility test says the merge can't introduce conflicts, which keeps
+ * the power of canonical LR(1) with about as many states as LALR(1).</p>
+ * <p>{@link #start()} and {@link #startCanonicalLR1()} only register the first state, the others being
+ * found as states are {@link #expand expanded}, on demand (see {@link LazyTable}). Canonical LR(1) states
+ * are never merged, so a state never changes once expanded.</p>
+ */
+final class Automaton {
+
+    private final Grammar grammar;
+
+    /** The grammar's productions, the augmented one being the last */
+    private final Production[] productions;
+
+    private final int[] base;
+
+    /** Production of every item */
+    private final int[] itemProduction;
+
+    private final BitSet[] nonterminalClosures;
+
+    private final HashMap<Production, Integer> productionIndexes = new HashMap<>();
+
+    private final ArrayList<int[]> kernels = new ArrayList<>();
+
+    private final HashMap<Kernel, Integer> stateIds = new HashMap<>();
+
+    private final ArrayList<int[]> items = new ArrayList<>();
+
+    private final ArrayList<int[]> transitions = new ArrayList<>();
+
+    /** LR(1) only: lookaheads of every kernel item of every state */
+    private final ArrayList<BitSet[]> kernelLookaheads = new ArrayList<>();
+
+    /** LR(1) only: states by kernel, the candidates for merging */
+    private final HashMap<Kernel, ArrayList<Integer>> cores = new HashMap<>();
+
+    /** LR(1) only: lookaheads of every item of every state, aligned with {@link #items(int)} */
+    private final ArrayList<BitSet[]> itemLookaheads = new ArrayList<>();
+
+    private boolean lr1;
+
+    /** LR(1) states are only shared by kernels with the same lookaheads */
+    private boolean canonical;
+
+    private final ArrayDeque<Integer> unexpanded = new ArrayDeque<>();
+
+    private final BitSet queued = new BitSet();
+
+    /** @param productions the grammar's productions, the augmented start production being the last one */
+    Automaton(Grammar grammar, Production[] productions){
+        this.grammar = grammar;
+        this.productions = productions;
+        this.base = new int[productions.length];
+        int count = 0;
+        for(int p = 0; p < productions.length; p++){
+            productionIndexes.put(productions[p], p);
+            base[p] = count;
+            count += productions[p].length() + 1;
+        }
+        this.itemProduction = new int[count];
+        for(int p = 0; p < productions.length; p++)
+            Arrays.fill(itemProduction, base[p], base[p] + productions[p].length() + 1, p);
+        this.nonterminalClosures = new BitSet[grammar.symbolCount()];
+    }
+
+    /** Builds every state reachable from the augmented production. */
+    void build(){
+        start();
+        for(int state = 0; state < kernels.size(); state++)
+            expand(state);
+    }
+
+    /** Registers the LR(0) state of the augmented production, state 0, without expanding it. */
+    void start(){
+        state(new int[]{ base[productions.length - 1] });
+    }
+
+    /** Builds the same states as {@link #build()}, with the same numbers, expanding the states one level
+     * at a time on <code>pool</code>.
+     * <p>The states of a level are closed and their successor kernels computed in parallel, kernels
+     * found by several states being deduplicated through a concurrent map. The new states are then
+     * numbered in the order the sequential build would find them: by source state, then by symbol.</p>
+     */
+    void build(ForkJoinPool pool){
+        for(int symbol = grammar.terminalCount(); symbol < nonterminalClosures.length; symbol++)
+            nonterminalClosure(symbol); //filled before the parallel phase, the cache isn't synchronized
+        state(new int[]{ base[productions.length - 1] });
+        int levelStart = 0;
+        while(levelStart < kernels.size()){
+            int from = levelStart;
+            int to = kernels.size();
+            ConcurrentHashMap<Kernel, Kernel> found = new ConcurrentHashMap<>();
+            Expansion[] level;
+            try{
+                level = pool.submit(() -> IntStream.range(from, to).parallel()
+                        .mapToObj(state -> successors(state, found))
+                        .toArray(Expansion[]::new)).get();
+            }
+            catch(InterruptedException ex){
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while building the item sets", ex);
+            }
+            catch(ExecutionException ex){
+                throw new IllegalStateException("Building the item sets failed", ex.getCause());
+            }
+            for(int state = from; state < to; state++)
+                number(state, level[state - from]);
+            levelStart = to;
+        }
+    }
+
+    /** Closes <code>state</code> and computes its transitions, registering the states they reach. */
+    void expand(int state){
+        number(state, successors(state, null));
+    }
+
+    /** Closes <code>state</code> and groups the items of the closure by the symbol after their dot,
+     * keeping the order symbols are first seen in, without changing the automaton.
+     * @param found kernels already found, to share one instance per kernel, or null
+     */
+    private Expansion successors(int state, ConcurrentHashMap<Kernel, Kernel> found){
+        int[] closure = close(kernels.get(state));
+        int[] symbols = new int[closure.length];
+        int count = 0;
+        HashMap<Integer, ArrayList<Integer>> moved = new HashMap<>();
+        for(int item: closure){
+            int symbol = symbolAfterDot(item);
+            if(symbol == -1)
+                continue;
+            ArrayList<Integer> kernel = moved.get(symbol);
+            if(kernel == null){
+                kernel = new ArrayList<>();
+                moved.put(symbol, kernel);
+                symbols[count++] = symbol;
+            }
+            kernel.add(item + 1);
+        }
+        Kernel[] next = new Kernel[count];
+        for(int i = 0; i < count; i++){
+            ArrayList<Integer> kernel = moved.get(symbols[i]);
+            int[] items = new int[kernel.size()];
+            for(int k = 0; k < items.length; k++)
+                items[k] = kernel.get(k);
+            Arrays.sort(items); //items moved in closure order, sorting keeps them in the same order
+            next[i] = new Kernel(items);
+            if(found != null && !stateIds.containsKey(next[i]))
+                next[i] = found.computeIfAbsent(next[i], key -> key);
+        }
+        return new Expansion(closure, Arrays.copyOf(symbols, count), next);
+    }
+
+    /** Records the closure and the transitions of <code>state</code>, numbering the states they reach. */
+    private void number(int state, Expansion expansion){
+        int[] closure = expansion.closure;
+        items.set(state, closure);
+        BitSet[] lookaheads = lr1 ? closureLookaheads(state, closure) : null;
+        if(canonical)
+            itemLookaheads.set(state, lookaheads);
+        int[] targets = new int[2 * expansion.symbols.length];
+        for(int i = 0; i < expansion.symbols.length; i++){
+            Kernel next = expansion.kernels[i];
+            targets[2 * i] = expansion.symbols[i];
+            if(!lr1){
+                targets[2 * i + 1] = state(next);
+                continue;
+            }
+            BitSet[] nextLookaheads = new BitSet[next.items.length];
+            for(int k = 0; k < next.items.length; k++)
+                nextLookaheads[k] = (BitSet) lookaheads[Arrays.binarySearch(closure, next.items[k] - 1)].clone();
+            targets[2 * i + 1] = stateLR1(next.items, nextLookaheads);
+        }
+        transitions.set(state, targets);
+    }
+
+    /** Builds the LR(1) states reachable from the augmented production, with <code>$</code> as its lookahead. */
+    void buildLR1(){
+        lr1 = true;
+        startLR1();
+        while(!unexpanded.isEmpty()){
+            int state = unexpanded.poll();
+            queued.clear(state);
+            expand(state);
+        }
+        removeUnreachable();
+        itemLookaheads.clear();
+        for(int state = 0; state < kernels.size(); state++)
+            itemLookaheads.add(closureLookaheads(state, items.get(state)));
+    }
+
+    /** Registers the canonical LR(1) state of the augmented production, state 0, without expanding it.
+     * The states found by expanding it and its successors are canonical LR(1) states, never merged, so
+     * their lookaheads are known as soon as they are expanded.
+     */
+    void startCanonicalLR1(){
+        lr1 = true;
+        canonical = true;
+        startLR1();
+    }
+
+    private void startLR1(){
+        BitSet end = new BitSet();
+        end.set(grammar.symbolId(Grammar.END));
+        stateLR1(new int[]{ base[productions.length - 1] }, new BitSet[]{ end });
+    }
+
+    /** Lookaheads of the items of <code>closure</code>, the closure of <code>state</code>'s kernel. Kernel
+     * items have their own lookaheads. The items added by the closure only depend on their left side,
+     * a nonterminal <code>B</code> after the dot of <code>A -> a.Bb [L]</code> getting FIRST(b), and
+     * <code>L</code> if <code>b</code> is nullable.
+     */
+    private BitSet[] closureLookaheads(int state, int[] closure){
+        int[] kernel = kernels.get(state);
+        BitSet[] kernelSets = kernelLookaheads.get(state);
+        HashMap<Integer, BitSet> nonterminals = new HashMap<>();
+        for(int item: closure){
+            int symbol = symbolAfterDot(item);
+            if(symbol != -1 && !grammar.isTerminal(symbol))
+                nonterminals.computeIfAbsent(symbol, key -> new BitSet());
+        }
+        boolean changed = true;
+        while(changed){
+            changed = false;
+            for(int item: closure){
+                int symbol = symbolAfterDot(item);
+                if(symbol == -1 || grammar.isTerminal(symbol))
+                    continue;
+                BitSet target = nonterminals.get(symbol);
+                int before = target.cardinality();
+                int k = Arrays.binarySearch(kernel, item);
+                BitSet source = k >= 0 ? kernelSets[k] : nonterminals.get(production(item).lhs());
+                if(grammar.firstOf(production(item), dot(item) + 1, target))
+                    target.or(source);
+                changed |= target.cardinality() != before;
+            }
+        }
+        BitSet[] result = new BitSet[closure.length];
+        for(int i = 0; i < closure.length; i++){
+            int k = Arrays.binarySearch(kernel, closure[i]);
+            result[i] = k >= 0 ? kernelSets[k] : nonterminals.get(production(closure[i]).lhs());
+        }
+        return result;
+    }
+
+    /** @return the state the LR(1) kernel <code>kernel</code> with <code>lookaheads</code> belongs to,
+     * merging it in a compatible state with the same kernel or registering a new state
+     */
+    private int stateLR1(int[] kernel, BitSet[] lookaheads){
+        Kernel key = new Kernel(kernel);
+        ArrayList<Integer> candidates = cores.computeIfAbsent(key, k -> new ArrayList<>());
+        for(int candidate: candidates){
+            BitSet[] existing = kernelLookaheads.get(candidate);
+            if(canonical){
+                if(Arrays.equals(existing, lookaheads))
+                    return candidate;
+                continue;
+            }
+            if(!weaklyCompatible(existing, lookaheads))
+                continue;
+            boolean grew = false;
+            for(int k = 0; k < existing.length; k++){
+                int before = existing[k].cardinality();
+                existing[k].or(lookaheads[k]);
+                grew |= existing[k].cardinality() != before;
+            }
+            if(grew && !queued.get(candidate)){ //its successors have to see the new lookaheads
+                queued.set(candidate);
+                unexpanded.add(candidate);
+            }
+            return candidate;
+        }
+        int state = kernels.size();
+        kernels.add(kernel);
+        kernelLookaheads.add(lookaheads);
+        items.add(null);
+        transitions.add(null);
+        itemLookaheads.add(null);
+        candidates.add(state);
+        if(!canonical){
+            queued.set(state);
+            unexpanded.add(state);
+        }
+        return state;
+    }
+
+    /** Pager's weak compatibility: merging can't create a conflict between kernel items <code>i</code>
+     * and <code>j</code> if the lookaheads don't cross (<code>a[i] ∩ b[j]</code> and <code>a[j] ∩ b[i]</code>
+     * empty), or if the items already share a lookahead in one of the states.
+     */
+    private static boolean weaklyCompatible(BitSet[] a, BitSet[] b){
+        for(int i = 0; i < a.length; i++)
+            for(int j = i + 1; j < a.length; j++){
+                if(!a[i].intersects(b[j]) && !a[j].intersects(b[i]))
+                    continue;
+                if(a[i].intersects(a[j]) || b[i].intersects(b[j]))
+                    continue;
+                return false;
+            }
+        return true;
+    }
+
+    /** Drops the states left unreachable by merges, numbering the others in breadth first order. */
+    private void removeUnreachable(){
+        int[] renumber = new int[kernels.size()];
+        Arrays.fill(renumber, -1);
+        ArrayList<Integer> order = new ArrayList<>();
+        renumber[0] = 0;
+        order.add(0);
+        for(int i = 0; i < order.size(); i++){
+            int[] targets = transitions.get(order.get(i));
+            for(int t = 1; t < targets.length; t += 2)
+                if(renumber[targets[t]] == -1){
+                    renumber[targets[t]] = order.size();
+                    order.add(targets[t]);
+                }
+        }
+        ArrayList<int[]> oldKernels = new ArrayList<>(kernels);
+        ArrayList<int[]> oldItems = new ArrayList<>(items);
+        ArrayList<int[]> oldTransitions = new ArrayList<>(transitions);
+        ArrayList<BitSet[]> oldLookaheads = new ArrayList<>(kernelLookaheads);
+        kernels.clear();
+        items.clear();
+        transitions.clear();
+        kernelLookaheads.clear();
+        for(int old: order){
+            kernels.add(oldKernels.get(old));
+            items.add(oldItems.get(old));
+            kernelLookaheads.add(oldLookaheads.get(old));
+            int[] targets = oldTransitions.get(old).clone();
+            for(int t = 1; t < targets.length; t += 2)
+                targets[t] = renumber[targets[t]];
+            transitions.add(targets);
+        }
+        cores.clear();
+    }
+
+    /** LR(1) only: lookaheads of the items of <code>state</code>, aligned with {@link #items(int)}, or null
+     * if it wasn't expanded yet.
+     */
+    BitSet[] lookaheads(int state){
+        return itemLookaheads.get(state);
+    }
+
+    boolean isLR1(){
+        return lr1;
+    }
+
+    /** @return the state number of the state with this sorted <code>kernel</code>, registering it if it's new */
+    int state(int[] kernel){
+        return state(new Kernel(kernel));
+    }
+
+    private int state(Kernel kernel){
+        Integer id = stateIds.putIfAbsent(kernel, kernels.size());
+        if(id != null)
+            return id;
+        kernels.add(kernel.items);
+        items.add(null);
+        transitions.add(null);
+        return kernels.size() - 1;
+    }
+
+    private int[] close(int[] kernel){
+        BitSet closure = new BitSet(itemProduction.length);
+        for(int item: kernel){
+            closure.set(item);
+            int symbol = symbolAfterDot(item);
+            if(symbol != -1 && !grammar.isTerminal(symbol))
+                closure.or(nonterminalClosure(symbol));
+        }
+        return closure.stream().toArray();
+    }
+
+    /** Items added to a state by the nonterminal <code>symbol</code> after a dot: the productions of
+     * every nonterminal that can start a derivation of <code>symbol</code>, with the dot at the beginning.
+     */
+    private BitSet nonterminalClosure(int symbol){
+        BitSet cached = nonterminalClosures[symbol];
+        if(cached != null)
+            return cached;
+        BitSet result = new BitSet(itemProduction.length);
+        BitSet visited = new BitSet(grammar.symbolCount());
+        ArrayList<Integer> pending = new ArrayList<>();
+        pending.add(symbol);
+        visited.set(symbol);
+        while(!pending.isEmpty()){
+            int nonterminal = pending.remove(pending.size() - 1);
+            for(Production production: grammar.productionsOf(nonterminal)){
+                result.set(base[indexOf(production)]);
+                if(production.length() > 0){
+                    int first = production.symbol(0);
+                    if(!grammar.isTerminal(first) && !visited.get(first)){
+                        visited.set(first);
+                        pending.add(first);
+                    }
+                }
+            }
+        }
+        nonterminalClosures[symbol] = result;
+        return result;
+    }
+
+    /** @return the index of <code>production</code> in the productions array */
+    int indexOf(Production production){
+        return productionIndexes.get(production);
+    }
+
+    int states(){
+        return kernels.size();
+    }
+
+    /** @return the items of <code>state</code>, sorted, or null if it wasn't expanded yet */
+    int[] items(int state){
+        return items.get(state);
+    }
+
+    /** @return the transitions of <code>state</code> as <code>symbol, target state</code> pairs */
+    int[] transitions(int state){
+        return transitions.get(state);
+    }
+
+    /** @return the state reached from <code>state</code> on <code>symbol</code>, or <code>-1</code> */
+    int transition(int state, int symbol){
+        int[] targets = transitions.get(state);
+        for(int t = 0; t < targets.length; t += 2)
+            if(targets[t] == symbol)
+                return targets[t + 1];
+        return -1;
+    }
+
+    /** @return the index of the production of <code>item</code> in the productions array */
+    int productionIndex(int item){
+        return itemProduction[item];
+    }
+
+    int productionCount(){
+        return productions.length;
+    }
+
+    Production production(int item){
+        return productions[itemProduction[item]];
+    }
+
+    int dot(int item){
+        return item - base[itemProduction[item]];
+    }
+
+    /** @return the symbol after the dot of <code>item</code>, or <code>-1</code> if the dot is at the end */
+    int symbolAfterDot(int item){
+        Production production = production(item);
+        int dot = dot(item);
+        return dot < production.length() ? production.symbol(dot) : -1;
+    }
+
+    /** @return true if <code>item</code> belongs to the augmented start production */
+    boolean isAugmented(int item){
+        return itemProduction[item] == productions.length - 1;
+    }
+
+    /** The items of <code>state</code> as articles, for display. */
+    LinkedHashSet<Article> articles(int state){
+        LinkedHashSet<Article> result = new LinkedHashSet<>();
+        for(int item: items.get(state)){
+            Article article = new Article(production(item));
+            article.dot = dot(item);
+            result.add(article);
+        }
+        return result;
+    }
+
+    /** The closure of a state and the kernels its transitions lead to, in symbol order. */
+    private static final class Expansion {
+
+        final int[] closure;
+
+        final int[] symbols;
+
+        final Kernel[] kernels;
+
+        Expansion(int[] closure, int[] symbols, Kernel[] kernels){
+            this.closure = closure;
+            this.symbols = symbols;
+            this.kernels = kernels;
+        }
+    }
+
+    /** Sorted item ids used as a hash key, the hash being computed once. */
+    private static final class Kernel {
+
+        private final int[] items;
+
+        private final int hash;
+
+        Kernel(int[] items){
+            this.items = items;
+            this.hash = Arrays.hashCode(items);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Kernel kernel && hash == kernel.hash && Arrays.equals(items, kernel.items);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package parser;
+
+import constants.Status;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/** A parser remembering the statuses of the inputs it has already parsed, in front of another parser.
+ * <p>The cache belongs to this instance and to the parser it wraps, so parsers of different grammars (or
+ * tables) never share results. Inputs are compared whole, a hash collision can't return a wrong status.</p>
+ * <li>bounded by a number of entries and by an approximate number of bytes, the input's characters plus
+ * <code>ENTRY_OVERHEAD</code> per entry, inputs larger than the byte bound not being cached;</li>
+ * <li>evicting with the CLOCK approximation of LRU: a hit only sets a flag on the entry, and the eviction
+ * skips (and clears) flagged entries, so recently used entries stay;</li>
+ * <li>lookups are lock free, the lock being only taken to insert the result of a miss, which costs a parse
+ * anyway.</li>
+ * <br> Eg. <code>Parser parser = new CachingParser(new LRParserWrapper(grammar), 100_000)</code>
+ */
+public class CachingParser implements Parser {
+
+    /** Approximate bytes used by an entry besides the characters of its input */
+    public static final int ENTRY_OVERHEAD = 96;
+
+    private final Parser parser;
+
+    private final int maxEntries;
+
+    private final long maxBytes;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /** The entries in the order the clock hand visits them, the first <code>count</code> being used */
+    private Entry[] clock = new Entry[16];
+
+    private int count;
+
+    private int hand;
+
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /** Caches the statuses of at most <code>maxEntries</code> inputs. */
+    public CachingParser(Parser parser, int maxEntries){
+        this(parser, maxEntries, Long.MAX_VALUE);
+    }
+
+    /** Caches the statuses of at most <code>maxEntries</code> inputs, using at most about
+     * <code>maxBytes</code> bytes.
+     */
+    public CachingParser(Parser parser, int maxEntries, long maxBytes){
+        if(maxEntries < 1 || maxBytes < 1)
+            throw new IllegalArgumentException("The cache bounds have to be positive, got " + maxEntries + " entries, " + maxBytes + " bytes");
+        this.parser = Objects.requireNonNull(parser);
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public Status parse(String input) {
+        if(input == null) return Status.REJECTED; //not cached, the map has no null keys
+        Entry entry = entries.get(input);
+        if(entry != null){
+            hits.increment();
+            if(!entry.referenced)
+                entry.referenced = true;
+            return entry.status;
+        }
+        misses.increment();
+        Status status = parser.parse(input);
+        insert(input, status);
+        return status;
+    }
+
+    private synchronized void insert(String input, Status status){
+        long weight = weight(input);
+        if(weight > maxBytes || entries.containsKey(input))
+            return;
+        while(count == maxEntries || bytes + weight > maxBytes)
+            evict();
+        Entry entry = new Entry(input, status, weight);
+        if(count == clock.length)
+            clock = Arrays.copyOf(clock, (int) Math.min(maxEntries, 2L * clock.length));
+        clock[count++] = entry;
+        bytes += weight;
+        entries.put(input, entry);
+    }
+
+    /** Advances the clock hand to the first entry not used since the hand last passed, and evicts it. */
+    private void evict(){
+        while(true){
+            if(hand >= count)
+                hand = 0;
+            Entry entry = clock[hand];
+            if(entry.referenced){
+                entry.referenced = false;
+                hand++;
+                continue;
+            }
+            //the last entry takes the evicted one's place, the hand looks at it next
+            clock[hand] = clock[--count];
+            clock[count] = null;
+            bytes -= entry.weight;
+            entries.remove(entry.input);
+            evictions.increment();
+            return;
+        }
+    }
+
+    private static long weight(String input){
+        return 2L * input.length() + ENTRY_OVERHEAD;
+    }
+
+    /** Drops every cached status, the statistics are kept. */
+    public synchronized void clear(){
+        entries.clear();
+        Arrays.fill(clock, 0, count, null);
+        count = 0;
+        hand = 0;
+        bytes = 0;
+    }
+
+    /** @return the number of cached statuses */
+    public int size(){
+        return entries.size();
+    }
+
+    /** @return the approximate bytes used by the cached entries */
+    public synchronized long getBytes(){
+        return bytes;
+    }
+
+    /** @return the number of inputs whose status was found in the cache */
+    public long getHits(){
+        return hits.sum();
+    }
+
+    /** @return the number of inputs that had to be parsed */
+    public long getMisses(){
+        return misses.sum();
+    }
+
+    /** @return the number of entries evicted to make room for others */
+    public long getEvictions(){
+        return evictions.sum();
+    }
+
+    /** @return the fraction of the inputs whose status was found in the cache, 0 before the first input */
+    public double getHitRate(){
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    @Override
+    public String toString() {
+        return "CachingParser{hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions()
+                + ", size=" + size() + "}";
+    }
+
+    private static final class Entry {
+
+        final String input;
+
+        final Status status;
+
+        final long weight;
+
+        /** Whether the entry was used since the clock hand last passed it, set without a lock */
+        volatile boolean referenced;
+
+        Entry(String input, Status status, long weight){
+            this.input = input;
+            this.status = status;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package parser;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.function.IntUnaryOperator;
+
+/** Compressed storage for the cells of a {@link ParseTable}, built once the table is complete.
+ * <li>default reductions - every state gets the reduction it uses the most as its default, its cells
+ * are only recorded in a lookahead mask of one bit per terminal;</li>
+ * <li>default jumps - every nonterminal column gets its most common target state as its default, the
+ * states it's used for being recorded in a mask of one bit per state;</li>
+ * <li>row deduplication - states whose Action rows are identical share one row;</li>
+ * <li>comb vectors - the remaining Action cells of every row, and the Jump cells of every nonterminal
+ * column, are packed in shared <code>next</code> arrays, each row starting at its own <code>base</code>
+ * offset, the rows being interleaved wherever their cells don't collide;</li>
+ * <li>check arrays - tell which row a packed cell belongs to, a cell owned by another row being an error.</li>
+ * <p>A lookup is a few array reads, whatever the size of the table.</p>
+ */
+final class CompressedTable {
+
+    private final int terminalCount;
+
+    /** Action row of every state */
+    private final int[] rowOf;
+
+    private final int[] defaultReductions;
+
+    /** <code>words</code> longs per row, the terminals the default reduction of the row is used for */
+    private final long[] defaultMasks;
+
+    private final int words;
+
+    private final int[] actionBase;
+
+    private final int[] actionNext;
+
+    private final int[] actionCheck;
+
+    /** Default jump of every nonterminal column, indexed by <code>column - terminalCount</code> */
+    private final int[] defaultJumps;
+
+    /** <code>stateWords</code> longs per nonterminal column, the states its default jump is used for */
+    private final long[] jumpMasks;
+
+    private final int stateWords;
+
+    private final int[] jumpBase;
+
+    private final int[] jumpNext;
+
+    private final int[] jumpCheck;
+
+    /** @param cells <code>states</code> dense rows of <code>width</code> cells */
+    CompressedTable(int[] cells, int states, int width, int terminalCount){
+        this.terminalCount = terminalCount;
+        this.words = (terminalCount + 63) >>> 6;
+
+        //deduplicate the Action rows
+        rowOf = new int[states];
+        HashMap<Row, Integer> rows = new HashMap<>();
+        int[] firstState = new int[states];
+        for(int state = 0; state < states; state++){
+            Row row = new Row(cells, state * width, terminalCount);
+            Integer id = rows.putIfAbsent(row, rows.size());
+            if(id == null){
+                id = rows.size() - 1;
+                firstState[id] = state;
+            }
+            rowOf[state] = id;
+        }
+        int rowCount = rows.size();
+
+        //default reductions, the other non-error cells are packed
+        defaultReductions = new int[rowCount];
+        defaultMasks = new long[rowCount * words];
+        int[][] columns = new int[rowCount][];
+        int[][] values = new int[rowCount][];
+        for(int row = 0; row < rowCount; row++){
+            int offset = firstState[row] * width;
+            int best = defaultReduction(column -> cells[offset + column], terminalCount);
+            defaultReductions[row] = best;
+            int packed = 0;
+            for(int column = 0; column < terminalCount; column++){
+                int action = cells[offset + column];
+                if(action == Action.ERROR)
+                    continue;
+                if(action == best)
+                    defaultMasks[row * words + (column >>> 6)] |= 1L << column;
+                else
+                    packed++;
+            }
+            columns[row] = new int[packed];
+            values[row] = new int[packed];
+            packed = 0;
+            for(int column = 0; column < terminalCount; column++){
+                int action = cells[offset + column];
+                if(action != Action.ERROR && action != best){
+                    columns[row][packed] = column;
+                    values[row][packed++] = action;
+                }
+            }
+        }
+        Comb actions = new Comb(columns, values, terminalCount);
+        actionBase = actions.base;
+        actionNext = actions.next;
+        actionCheck = actions.check;
+
+        //Jump columns are packed column-wise, a column being indexed by state
+        int nonterminals = width - terminalCount;
+        stateWords = (states + 63) >>> 6;
+        defaultJumps = new int[nonterminals];
+        jumpMasks = new long[nonterminals * stateWords];
+        int[][] jumpStates = new int[nonterminals][];
+        int[][] jumpTargets = new int[nonterminals][];
+        HashMap<Integer, Integer> uses = new HashMap<>();
+        for(int n = 0; n < nonterminals; n++){
+            int column = terminalCount + n;
+            uses.clear();
+            int best = Action.ERROR;
+            int bestUses = 0;
+            for(int state = 0; state < states; state++){
+                int action = cells[state * width + column];
+                if(action == Action.ERROR)
+                    continue;
+                int count = uses.merge(action, 1, Integer::sum);
+                if(count > bestUses || (count == bestUses && action < best)){
+                    best = action;
+                    bestUses = count;
+                }
+            }
+            defaultJumps[n] = best;
+            int packed = 0;
+            for(int state = 0; state < states; state++){
+                int action = cells[state * width + column];
+                if(action == Action.ERROR)
+                    continue;
+                if(action == best)
+                    jumpMasks[n * stateWords + (state >>> 6)] |= 1L << state;
+                else
+                    packed++;
+            }
+            jumpStates[n] = new int[packed];
+            jumpTargets[n] = new int[packed];
+            packed = 0;
+            for(int state = 0; state < states; state++){
+                int action = cells[state * width + column];
+                if(action != Action.ERROR && action != best){
+                    jumpStates[n][packed] = state;
+                    jumpTargets[n][packed++] = action;
+                }
+            }
+        }
+        Comb jumps = new Comb(jumpStates, jumpTargets, states);
+        jumpBase = jumps.base;
+        jumpNext = jumps.next;
+        jumpCheck = jumps.check;
+    }
+
+    /** @param row the action of a row on every terminal column
+     * @return the reduction the row has on the most terminals, the lowest one on a tie, or an error if it has none
+     */
+    static int defaultReduction(IntUnaryOperator row, int terminalCount){
+        HashMap<Integer, Integer> uses = new HashMap<>();
+        int best = Action.ERROR;
+        int bestUses = 0;
+        for(int column = 0; column < terminalCount; column++){
+            int action = row.applyAsInt(column);
+            if(Action.kind(action) != Action.REDUCE)
+                continue;
+            int count = uses.merge(action, 1, Integer::sum);
+            if(count > bestUses || (count == bestUses && action < best)){
+                best = action;
+                bestUses = count;
+            }
+        }
+        return best;
+    }
+
+    /** @return the default reduction of <code>state</code>, or an error if it has none */
+    int defaultReduction(int state){
+        return defaultReductions[rowOf[state]];
+    }
+
+    /** The action to take, default reductions included: a state with one is reduced on any terminal
+     * it has no other action for, the error being found at the next shift instead.
+     */
+    int action(int state, int column){
+        int row = rowOf[state];
+        int index = actionBase[row] + column;
+        if(actionCheck[index] == row)
+            return actionNext[index];
+        return defaultReductions[row];
+    }
+
+    /** The jump after a reduction to the nonterminal <code>column</code>. The stack holding a viable
+     * prefix, the cell is never an error, and the column's default jump is used when no other is packed.
+     */
+    int jump(int state, int column){
+        int n = column - terminalCount;
+        int index = jumpBase[n] + state;
+        if(jumpCheck[index] == n)
+            return jumpNext[index];
+        return defaultJumps[n];
+    }
+
+    /** @return the exact cell, as it was in the dense table */
+    int get(int state, int column){
+        if(column >= terminalCount){
+            int n = column - terminalCount;
+            int index = jumpBase[n] + state;
+            if(jumpCheck[index] == n)
+                return jumpNext[index];
+            if((jumpMasks[n * stateWords + (state >>> 6)] & (1L << state)) != 0)
+                return defaultJumps[n];
+            return Action.ERROR;
+        }
+        int row = rowOf[state];
+        int index = actionBase[row] + column;
+        if(actionCheck[index] == row)
+            return actionNext[index];
+        if((defaultMasks[row * words + (column >>> 6)] & (1L << column)) != 0)
+            return defaultReductions[row];
+        return Action.ERROR;
+    }
+
+    /** Row displacement packing of sparse rows, first fit, the fullest rows being placed first. */
+    private static final class Comb {
+
+        final int[] base;
+
+        final int[] next;
+
+        final int[] check;
+
+        /** @param length number of cells of a row, some of them may be past the end of the packed arrays */
+        Comb(int[][] columns, int[][] values, int length){
+            int rows = columns.length;
+            base = new int[rows];
+            Integer[] order = new Integer[rows];
+            for(int row = 0; row < rows; row++)
+                order[row] = row;
+            Arrays.sort(order, (a, b) -> columns[b].length - columns[a].length);
+            BitSet used = new BitSet();
+            int size = 0;
+            int firstFree = 0;
+            for(int row: order){
+                int[] cols = columns[row];
+                if(cols.length == 0)
+                    continue;
+                int candidate = Math.max(0, firstFree - cols[0]);
+                while(!fits(used, cols, candidate))
+                    candidate++;
+                base[row] = candidate;
+                for(int column: cols)
+                    used.set(candidate + column);
+                size = Math.max(size, candidate + cols[cols.length - 1] + 1);
+                firstFree = used.nextClearBit(firstFree);
+            }
+            int maxBase = 0;
+            for(int row = 0; row < rows; row++)
+                maxBase = Math.max(maxBase, base[row]);
+            size = Math.max(size, maxBase + length);
+            next = new int[size];
+            check = new int[size];
+            Arrays.fill(check, -1);
+            for(int row = 0; row < rows; row++)
+                for(int k = 0; k < columns[row].length; k++){
+                    next[base[row] + columns[row][k]] = values[row][k];
+                    check[base[row] + columns[row][k]] = row;
+                }
+        }
+
+        private static boolean fits(BitSet used, int[] columns, int candidate){
+            for(int column: columns)
+                if(used.get(candidate + column))
+                    return false;
+            return true;
+        }
+    }
+
+    /** A dense Action row, hashed once. */
+    private static final class Row {
+
+        private final int[] cells;
+
+        private final int offset;
+
+        private final int length;
+
+        private final int hash;
+
+        Row(int[] cells, int offset, int length){
+            this.cells = cells;
+            this.offset = offset;
+            this.length = length;
+            int h = 1;
+            for(int i = offset; i < offset + length; i++)
+                h = 31 * h + cells[i];
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Row row && hash == row.hash
+                    && Arrays.equals(cells, offset, offset + length, row.cells, row.offset, row.offset + row.length);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package parser;
+
+import constants.Status;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/** Generalized LR driver over the table of a generalized parser, whose conflict cells keep all their actions
+ * (see {@link Action#CONFLICT}).
+ * <p>The input is parsed by a {@link ParseEngine} until a token reaches a conflict cell. From there every
+ * action of the cell is followed at once, on a graph-structured stack: the stacks of the parses share their
+ * nodes, a level of the graph holding one node per state after each token, so parses reaching the same state
+ * on the same token are merged into one node with several predecessors, and the graph never has more than
+ * <code>states</code> nodes per token. Reductions pop every path of the production's length below a node,
+ * and a predecessor added to a node already reduced from is followed by the reductions that can go through
+ * it (Farshi's correction), so no parse is lost. A parse whose token has no action dies.</p>
+ * <p>The graph also takes over the stacks whose reductions the {@link ParseEngine} finds endless: on the graph
+ * they reach the nodes they already went through, so they stop, and the token is shifted if it can be.</p>
+ * <p>As soon as the graph is a single stack again (one node per level) after a shift, the stack is handed back
+ * to the {@link ParseEngine}: an input only pays for the graph while several parses are alive, and for copying
+ * its stack at both ends, so a grammar whose conflicts are seldom reached parses at about the speed of a
+ * deterministic parser. Following every
+ * parse side by side, instead of backtracking, keeps the work polynomial in the input's length even for
+ * ambiguous inputs with exponentially many parses.</p>
+ * <p>Only the status is computed: the nodes don't record the symbols they were reached on, and no parse
+ * forest is built.</p>
+ */
+final class GLREngine {
+
+    private final ParseTable table;
+
+    private final int end;
+
+    /** The node of every state in the level being built, valid if its <code>stamps</code> is <code>level</code> */
+    private final Node[] byState;
+
+    private final int[] stamps;
+
+    private int level;
+
+    /** Nodes of the current level, in the order they were added */
+    private final ArrayList<Node> nodes = new ArrayList<>();
+
+    /** Reductions still to run on the current level */
+    private final ArrayList<Reduction> pending = new ArrayList<>();
+
+    private final int[] single = new int[1];
+
+    /** The nodes found at a depth by {@link #reduce} and at the next one, the lists being reused */
+    private final ArrayList<Node> foundThrough = new ArrayList<>();
+
+    private final ArrayList<Node> foundBefore = new ArrayList<>();
+
+    private final ArrayList<Node> nextFoundThrough = new ArrayList<>();
+
+    private final ArrayList<Node> nextFoundBefore = new ArrayList<>();
+
+    /** Marks the nodes found at the current depth of a reduction */
+    private int visit;
+
+    GLREngine(ParseTable table, int end){
+        this.table = table;
+        this.end = end;
+        this.byState = new Node[Math.max(table.states(), 1)];
+        this.stamps = new int[byState.length];
+    }
+
+    Status parse(TokenSource tokens) throws IOException {
+        ParseEngine engine = new ParseEngine(table);
+        while(true){
+            int column = tokens.next();
+            int result = engine.feed(column);
+            //the graph runs the reductions a deterministic stack would repeat forever once, an empty production
+            //jumping back to its state being a link of a node to itself
+            if(result == ParseEngine.CONFLICT || result == ParseEngine.ENDLESS){
+                ArrayList<Node> frontier = new ArrayList<>();
+                frontier.add(stack(engine.snapshot()));
+                while(true){
+                    frontier = feed(frontier, column);
+                    if(frontier == null)
+                        return Status.ACCEPTED;
+                    if(frontier.isEmpty() || column == end)
+                        return Status.REJECTED;
+                    if(frontier.size() == 1 && frontier.get(0).linear()){
+                        engine.restore(frontier.get(0).states());
+                        break;
+                    }
+                    column = tokens.next();
+                    if(column < 0)
+                        return Status.REJECTED;
+                }
+                continue;
+            }
+            if(result == ParseEngine.ACCEPTED)
+                return Status.ACCEPTED;
+            if(result != ParseEngine.SHIFTED || column == end)
+                return Status.REJECTED;
+        }
+    }
+
+    /** @return the graph of a single stack, <code>states</code> from the bottom up */
+    private static Node stack(int[] states){
+        Node node = new Node(states[0], null);
+        node.linear = true;
+        for(int i = 1; i < states.length; i++){
+            node = new Node(states[i], node);
+            node.linear = true;
+        }
+        return node;
+    }
+
+    /** Runs every reduction <code>column</code> triggers on the nodes of <code>frontier</code>, then shifts it.
+     * @return the nodes of the next level, or null if the input was accepted
+     */
+    private ArrayList<Node> feed(ArrayList<Node> frontier, int column){
+        level++;
+        nodes.clear();
+        for(Node node: frontier){
+            byState[node.state] = node;
+            stamps[node.state] = level;
+            nodes.add(node);
+            reductions(node, column, null, null);
+        }
+        while(!pending.isEmpty()){
+            Reduction reduction = pending.remove(pending.size() - 1);
+            reduce(reduction.node, table.rhsLength(reduction.production), table.lhsColumn(reduction.production),
+                    reduction.from, reduction.to, column);
+        }
+        //the links of this level are final, a node with a single one got it when added, to a node added before
+        for(Node node: nodes)
+            node.linear = node.count == 0 || node.linear();
+
+        level++;
+        ArrayList<Node> next = new ArrayList<>();
+        for(Node node: nodes)
+            for(int action: actions(node.state, column)){
+                if(Action.kind(action) == Action.ACCEPT)
+                    return null;
+                if(Action.kind(action) != Action.SHIFT)
+                    continue;
+                int state = Action.operand(action);
+                Node target = find(state);
+                if(target == null){
+                    target = new Node(state, node);
+                    byState[state] = target;
+                    stamps[state] = level;
+                    next.add(target);
+                }
+                else
+                    target.link(node);
+            }
+        return next;
+    }
+
+    /** Queues the reductions of <code>node</code> on <code>column</code>, only those whose paths can go through
+     * the predecessor <code>to</code> of <code>from</code> if <code>from</code> isn't null.
+     */
+    private void reductions(Node node, int column, Node from, Node to){
+        for(int action: actions(node.state, column))
+            if(Action.kind(action) == Action.REDUCE
+                    && (from == null || table.rhsLength(Action.operand(action)) > 0))
+                pending.add(new Reduction(node, Action.operand(action), from, to));
+    }
+
+    /** Pops every path of <code>length</code> nodes below <code>node</code>, going through the link from
+     * <code>from</code> to <code>to</code> if <code>from</code> isn't null, and jumps on <code>lhs</code> from
+     * the node each one ends on.
+     * <p>Only the nodes the paths end on matter, not the paths: the nodes are found one depth at a time, each
+     * node once per depth, so a reduction costs at most the links below its nodes, whatever the number of
+     * paths. The paths that didn't go through the link yet are kept apart, and only follow the links within
+     * the current level, where the link is: a node can have a link to every level below, eg. a statement
+     * closing any of the nested <code>if</code>s before it, and these would be followed for every new link.</p>
+     */
+    private void reduce(Node node, int length, int lhs, Node from, Node to, int column){
+        ArrayList<Node> through = foundThrough;
+        ArrayList<Node> before = foundBefore;
+        ArrayList<Node> nextThrough = nextFoundThrough;
+        ArrayList<Node> nextBefore = nextFoundBefore;
+        through.clear();
+        before.clear();
+        (from == null ? through : before).add(node);
+        for(int depth = 0; depth < length; depth++){
+            int mark = ++visit;
+            nextThrough.clear();
+            nextBefore.clear();
+            for(Node above: through)
+                for(int i = 0; i < above.count; i++)
+                    if(above.links[i].through != mark){
+                        above.links[i].through = mark;
+                        nextThrough.add(above.links[i]);
+                    }
+            for(Node above: before){
+                if(above == from && to.through != mark){
+                    to.through = mark;
+                    nextThrough.add(to);
+                }
+                for(int i = 0; i < above.levelCount; i++){
+                    Node below = above.level[i];
+                    if(below.before != mark){
+                        below.before = mark;
+                        nextBefore.add(below);
+                    }
+                }
+            }
+            ArrayList<Node> swap = through;
+            through = nextThrough;
+            nextThrough = swap;
+            swap = before;
+            before = nextBefore;
+            nextBefore = swap;
+        }
+        //jumping adds links and nodes to the current level, not to the nodes found
+        for(Node end: through)
+            jump(end, lhs, column);
+    }
+
+    /** Adds the node reached by jumping on <code>lhs</code> from <code>node</code> to the current level. */
+    private void jump(Node node, int lhs, int column){
+        int jump = table.jump(node.state, lhs);
+        if(Action.kind(jump) != Action.GOTO)
+            return;
+        int state = Action.operand(jump);
+        Node target = find(state);
+        if(target == null){
+            target = new Node(state, node);
+            byState[state] = target;
+            stamps[state] = level;
+            nodes.add(target);
+            if(find(node.state) == node)
+                target.linkLevel(node);
+            reductions(target, column, null, null);
+            return;
+        }
+        if(target.linked(node))
+            return;
+        target.link(node);
+        if(find(node.state) == node)
+            target.linkLevel(node);
+        //paths through the new link start from the nodes of this level, the new link may be below any of them
+        for(Node above: nodes)
+            reductions(above, column, target, node);
+    }
+
+    /** @return the node of <code>state</code> in the current level, or null */
+    private Node find(int state){
+        return stamps[state] == level ? byState[state] : null;
+    }
+
+    /** @return the actions of the cell, one unless it's a conflict */
+    private int[] actions(int state, int column){
+        int action = table.action(state, column);
+        if(Action.kind(action) == Action.CONFLICT)
+            return table.alternatives(action);
+        single[0] = action;
+        return single;
+    }
+
+    /** A node of the graph-structured stack: a state, and the nodes below it in the parses it's part of */
+    private static final class Node {
+
+        private static final int LINKS_SCANNED = 8;
+
+        private static final Node[] NONE = new Node[0];
+
+        final int state;
+
+        Node[] links;
+
+        int count;
+
+        /** The links, once there are too many to look them up one by one */
+        private HashSet<Node> linked;
+
+        /** The links to nodes of the same level, reached by reductions of nullable right sides */
+        Node[] level = NONE;
+
+        int levelCount;
+
+        /** The last depth of a reduction the node was found at, by a path through the link or before it */
+        int through;
+
+        int before;
+
+        /** Whether there is a single path from the node to the bottom of the graph, known once the node's
+         * level is done
+         */
+        boolean linear;
+
+        Node(int state, Node below){
+            this.state = state;
+            this.links = below == null ? NONE : new Node[]{below};
+            this.count = links.length;
+        }
+
+        boolean linked(Node below){
+            if(linked != null)
+                return linked.contains(below);
+            for(int i = 0; i < count; i++)
+                if(links[i] == below)
+                    return true;
+            return false;
+        }
+
+        void link(Node below){
+            if(count == links.length)
+                links = Arrays.copyOf(links, Math.max(2, 2 * count));
+            links[count++] = below;
+            if(linked != null)
+                linked.add(below);
+            else if(count > LINKS_SCANNED)
+                linked = new HashSet<>(Arrays.asList(links).subList(0, count));
+        }
+
+        void linkLevel(Node below){
+            if(levelCount == level.length)
+                level = Arrays.copyOf(level, Math.max(2, 2 * levelCount));
+            level[levelCount++] = below;
+        }
+
+        /** @return true if the node has a single predecessor, with a single path to the bottom of the graph */
+        boolean linear(){
+            return count == 1 && links[0].linear;
+        }
+
+        /** @return the states of the single path from the bottom of the graph to the node */
+        int[] states(){
+            int depth = 0;
+            for(Node node = this; node != null; node = node.count == 0 ? null : node.links[0])
+                depth++;
+            int[] states = new int[depth];
+            Node node = this;
+            for(int i = depth - 1; i >= 0; i--, node = node.count == 0 ? null : node.links[0])
+                states[i] = node.state;
+            return states;
+        }
+    }
+
+    /** A reduction to run on the current level, limited to the paths through a link if <code>from</code>
+     * isn't null
+     */
+    private static final class Reduction {
+
+        final Node node;
+
+        final int production;
+
+        final Node from;
+
+        final Node to;
+
+        Reduction(Node node, int production, Node from, Node to){
+            this.node = node;
+            this.production = production;
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
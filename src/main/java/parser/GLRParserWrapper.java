@@ -0,0 +1,70 @@
+package parser;
+
+import constants.Status;
+import constants.TableMode;
+import grammar.GrammarWrapper;
+import util.Pair;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.List;
+
+
+/** Generalized LR parser, for ambiguous grammars and grammars that aren't LR(1).
+ * <p>The table is built like the one of an {@link LRParserWrapper}, but the cells wanted by several
+ * actions keep them all instead of being resolved, and the parse follows every one of them side by side, on
+ * a graph-structured stack where the parses share their common parts. An input is accepted if any of its
+ * parses is, so the parser accepts exactly the language of the grammar, whatever its conflicts.</p>
+ * <p>Parsing starts like a deterministic parser's, the graph only being built once a token reaches a
+ * conflict, and left again when a single parse is alive: inputs that don't reach a conflict are parsed at about
+ * the speed of an {@link LRParserWrapper}. Following every parse keeps the work polynomial in the length of the
+ * input, even when the number of parses is exponential, eg. cubic for <code>E : E+E | E*E | id</code>.</p>
+ * <br> The table holds several actions per cell, so it's always built from the grammar, and can't be stored.
+ * <br> Eg. <code>Parser parser = new GLRParserWrapper(new GrammarWrapper("ambiguous.in"))</code>
+ */
+public class GLRParserWrapper extends ParserWrapper{
+
+    private final LRParser parser;
+
+    /** Builds a generalized parser over the LALR(1) table of the grammar. */
+    public GLRParserWrapper(GrammarWrapper grammar){
+        this(grammar, TableMode.LALR);
+    }
+
+    /** Builds a generalized parser over the table of the grammar built in <code>mode</code> (see
+     * {@link LRParserWrapper#LRParserWrapper(GrammarWrapper, TableMode)}). The parser accepts the same inputs
+     * in every mode, the modes with fewer conflicts following fewer parses.
+     */
+    public GLRParserWrapper(GrammarWrapper grammar, TableMode mode){
+        parser = new LRParser(grammar.getGrammar(), mode, true);
+    }
+
+    /** Returns the conflicts of the table, like
+     * <code>State 3, on +: shift 5 / reduce 1. E -> E+E, kept all</code>, which are the cells where the parse
+     * is followed in several ways. The list is empty if the grammar is deterministic in the parser's mode.
+     */
+    public List<String> getConflicts(){
+        return parser.getConflicts();
+    }
+
+    /** Returns the parser's table as a Map, like {@link LRParserWrapper#getParserTable()}, the actions of a
+     * conflict being separated by <code>/</code>, eg. <code>[3, +] = d5/r1</code>.
+     */
+    public HashMap<Pair<Integer, String>, String> getParserTable(){
+        return parser.getTable();
+    }
+
+    @Override
+    public Status parse(String input) {
+        return parser.parse(input);
+    }
+
+    /** Parses the input while reading it, keeping only a fixed-size chunk of it in memory.
+     * @see Parser#parse(Reader)
+     */
+    @Override
+    public Status parse(Reader input) throws IOException {
+        return parser.parse(input);
+    }
+}
@@ -0,0 +1,371 @@
+package parser;
+
+import constants.Status;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/** A document parsed again after every edit, reparsing only around the edit.
+ * <p>The tokens of the last parse are kept with a checkpoint each, the stack of states the parse had before
+ * the token. An edit is reparsed from the checkpoint of the first token it can have changed, and stops as
+ * soon as it reaches an old token after the edit with the same stack as in the old parse: the rest of the
+ * parse can't differ, so the old status still holds. The work of an edit depends on the size of the edit
+ * and on how far its effect on the stack goes, not on the size of the document.</p>
+ * <p>A parse rejecting the document before its end can't give checkpoints past the error, the ones of the
+ * last complete parse are kept there instead, so typing on and fixing the error is still resynchronized
+ * with them. While the document is rejected, an edit before the error is parsed up to it.</p>
+ * <li>stacks are linked lists of states, immutable, so the checkpoints share their common bottoms and
+ * comparing two stacks stops at the first shared node;</li>
+ * <li>the text and the tokens are gap buffers, the gap following the edits, so typing doesn't move the rest
+ * of the document. The offsets of the tokens after the gap are counted from the end of the text, an edit
+ * doesn't change them;</li>
+ * <li>the lexer may read past the end of a token, up to the length of the longest terminal, so tokens
+ * starting that close before the edit are lexed again.</li>
+ * <br> Instances aren't thread safe, an edit has to be applied before the next one.
+ * <br> Eg. <code>IncrementalParse document = parser.parseIncrementally(text); document.edit(12, 0, "+ id")</code>
+ */
+public final class IncrementalParse {
+
+    /** The stack of a new parse, holding the initial state */
+    private static final Node BOTTOM = new Node(0, null);
+
+    /** Returned by {@link #feed(Node, int)} once the input is accepted */
+    private static final Node ACCEPTED = new Node(-1, null);
+
+    private final ParseTable table;
+
+    private final Lexer lexer;
+
+    private final int end;
+
+    private final Text text = new Text();
+
+    /** Token offsets, from the start of the text before the gap and from its end after it */
+    private int[] starts = new int[64];
+
+    private int[] lengths = new int[64];
+
+    /** The stack before every token */
+    private Node[] stacks = new Node[64];
+
+    private int gapStart;
+
+    private int gapEnd = 64;
+
+    private Status status;
+
+    /** Whether the tokens are those of one parse of the whole text, the last parse having reached its end */
+    private boolean complete = true;
+
+    /** The status of the parse the tokens after the gap come from */
+    private Status reference;
+
+    /** The length of the end of the text left unchanged since the tokens after the gap were parsed */
+    private int clean;
+
+    private int reparsed;
+
+    IncrementalParse(ParseTable table, Lexer lexer, int end, String input){
+        this.table = table;
+        this.lexer = lexer;
+        this.end = end;
+        text.replace(0, 0, input);
+        status = parse(0, BOTTOM);
+    }
+
+    /** Replaces <code>removed</code> characters at <code>offset</code> with <code>inserted</code>, then parses
+     * the document again, from the last checkpoint before the edit.
+     * @return the status of the edited document
+     * @throws IndexOutOfBoundsException if the removed characters aren't all in the document
+     */
+    public Status edit(int offset, int removed, String inserted){
+        Objects.requireNonNull(inserted);
+        Objects.checkFromIndexSize(offset, removed, text.length());
+        //the checkpoints after a rejection are from a parse of another text, drop the ones before the edit
+        int first = Math.min(firstToken(offset - lexer.longest()), complete ? count() - 1 : gapStart - 1);
+        Node stack = first < gapStart ? stacks[first] : stacks[first - gapStart + gapEnd];
+        if(complete)
+            moveGap(first);
+        else {
+            Arrays.fill(stacks, first, gapStart, null);
+            gapStart = first;
+        }
+        text.replace(offset, removed, inserted);
+        clean = Math.min(clean, text.length() - offset - inserted.length());
+        status = parse(first, stack);
+        return status;
+    }
+
+    /** @return the status of the document, as of the last edit */
+    public Status getStatus(){
+        return status;
+    }
+
+    /** @return the number of tokens lexed and parsed by the last edit */
+    public int getReparsedTokens(){
+        return reparsed;
+    }
+
+    public int length(){
+        return text.length();
+    }
+
+    /** @return a copy of the document */
+    public String getText(){
+        return text.toString();
+    }
+
+    /** Parses the document from the token <code>first</code>, the first one after the gap, replacing the old
+     * tokens until the parse is back in step with them.
+     * @param stack the stack before the token <code>first</code>
+     */
+    private Status parse(int first, Node stack){
+        int synced = text.length() - clean;
+        int position = first == 0 ? 0 : starts[first - 1] + lengths[first - 1];
+        StringTokenSource tokens = new StringTokenSource(lexer, text, end, position);
+        reparsed = 0;
+        while(true){
+            int column = tokens.next();
+            int start = tokens.start();
+            //the old tokens the new ones have passed were changed by the edit
+            while(gapEnd < stacks.length && oldStart(gapEnd) < start)
+                stacks[gapEnd++] = null;
+            if(gapEnd < stacks.length && start >= synced && oldStart(gapEnd) == start && same(stack, stacks[gapEnd]))
+                return finish(reference);
+            add(start, tokens.position() - start, stack);
+            reparsed++;
+            stack = feed(stack, column);
+            if(stack == ACCEPTED || column == end){
+                Arrays.fill(stacks, gapEnd, stacks.length, null);
+                gapEnd = stacks.length;
+                return finish(stack == ACCEPTED ? Status.ACCEPTED : Status.REJECTED);
+            }
+            if(stack == null){
+                complete = false;
+                return Status.REJECTED;
+            }
+        }
+    }
+
+    /** Marks the tokens as one parse of the whole text, ending with <code>result</code>. */
+    private Status finish(Status result){
+        complete = true;
+        reference = result;
+        clean = text.length();
+        return result;
+    }
+
+    /** Runs every reduction <code>column</code> triggers, then shifts it, like {@link ParseEngine#feed(int)}.
+     * @return the new stack, {@link #ACCEPTED}, or null if the input is rejected
+     */
+    private Node feed(Node stack, int column){
+        if(column < 0)
+            return null;
+        for(int reductions = 1; ; reductions++){
+            int action = table.action(stack.state, column);
+            switch (Action.kind(action)) {
+                case Action.SHIFT -> {
+                    return new Node(Action.operand(action), stack);
+                }
+                case Action.REDUCE -> {
+                    int production = Action.operand(action);
+                    for(int i = table.rhsLength(production); i > 0; i--){
+                        stack = stack.parent;
+                        if(stack == null)
+                            return null;
+                    }
+                    if(reductions == ParseEngine.CHECKED_AFTER && endless(stack, column))
+                        return null;
+                    int jump = table.jump(stack.state, table.lhsColumn(production));
+                    if(Action.kind(jump) != Action.GOTO)
+                        return null;
+                    stack = new Node(Action.operand(jump), stack);
+                }
+                case Action.ACCEPT -> {
+                    return ACCEPTED;
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+    }
+
+    /** @return true if the reductions of <code>column</code> from <code>stack</code> never end, which a token
+     * running {@link ParseEngine#CHECKED_AFTER} reductions is checked for
+     */
+    private boolean endless(Node stack, int column){
+        int[] states = new int[stack.depth + 1];
+        for(Node node = stack; node != null; node = node.parent)
+            states[node.depth] = node.state;
+        return ParseEngine.endless(table, states, stack.depth, column);
+    }
+
+    /** @return true if the stacks hold the same states */
+    private static boolean same(Node first, Node second){
+        if(first.depth != second.depth)
+            return false;
+        while(first != second){
+            if(first.state != second.state)
+                return false;
+            first = first.parent;
+            second = second.parent;
+        }
+        return true;
+    }
+
+    private int count(){
+        return gapStart + stacks.length - gapEnd;
+    }
+
+    /** @return the offset of the token <code>index</code> */
+    private int start(int index){
+        return index < gapStart ? starts[index] : oldStart(index - gapStart + gapEnd);
+    }
+
+    /** @return the offset of the token stored at <code>slot</code>, after the gap */
+    private int oldStart(int slot){
+        return text.length() - starts[slot];
+    }
+
+    /** @return the first token starting at <code>offset</code> or after it, or the number of tokens */
+    private int firstToken(int offset){
+        int low = 0;
+        int high = count();
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(start(middle) < offset)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /** Moves the gap before the token <code>index</code>, converting the offsets of the tokens it passes. */
+    private void moveGap(int index){
+        int length = text.length();
+        while(gapStart > index){
+            gapStart--;
+            gapEnd--;
+            move(gapStart, gapEnd);
+            starts[gapEnd] = length - starts[gapEnd];
+        }
+        while(gapStart < index){
+            move(gapEnd, gapStart);
+            starts[gapStart] = length - starts[gapStart];
+            gapStart++;
+            gapEnd++;
+        }
+    }
+
+    private void move(int from, int to){
+        starts[to] = starts[from];
+        lengths[to] = lengths[from];
+        stacks[to] = stacks[from];
+        stacks[from] = null;
+    }
+
+    /** Adds a token before the gap. */
+    private void add(int start, int length, Node stack){
+        if(gapStart == gapEnd){
+            int capacity = stacks.length;
+            int after = capacity - gapEnd;
+            starts = grow(starts, after);
+            lengths = grow(lengths, after);
+            Node[] larger = new Node[2 * capacity];
+            System.arraycopy(stacks, 0, larger, 0, gapStart);
+            System.arraycopy(stacks, gapEnd, larger, larger.length - after, after);
+            stacks = larger;
+            gapEnd = larger.length - after;
+        }
+        starts[gapStart] = start;
+        lengths[gapStart] = length;
+        stacks[gapStart] = stack;
+        gapStart++;
+    }
+
+    /** @return the array twice as large, the <code>after</code> last elements moved to its end */
+    private int[] grow(int[] array, int after){
+        int[] larger = new int[2 * array.length];
+        System.arraycopy(array, 0, larger, 0, gapStart);
+        System.arraycopy(array, array.length - after, larger, larger.length - after, after);
+        return larger;
+    }
+
+    /** A stack of states, the top one first */
+    private static final class Node {
+
+        final int state;
+
+        final Node parent;
+
+        final int depth;
+
+        Node(int state, Node parent){
+            this.state = state;
+            this.parent = parent;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+        }
+    }
+
+    /** The document's characters, with a gap at the last edit */
+    private static final class Text implements CharSequence {
+
+        private char[] chars = new char[256];
+
+        private int gapStart;
+
+        private int gapEnd = chars.length;
+
+        void replace(int offset, int removed, String inserted){
+            moveGap(offset);
+            gapEnd += removed;
+            if(gapEnd - gapStart < inserted.length()){
+                int after = chars.length - gapEnd;
+                char[] larger = new char[Math.max(2 * chars.length, length() + inserted.length() + 256)];
+                System.arraycopy(chars, 0, larger, 0, gapStart);
+                System.arraycopy(chars, gapEnd, larger, larger.length - after, after);
+                chars = larger;
+                gapEnd = larger.length - after;
+            }
+            inserted.getChars(0, inserted.length(), chars, gapStart);
+            gapStart += inserted.length();
+        }
+
+        private void moveGap(int offset){
+            if(offset < gapStart){
+                int moved = gapStart - offset;
+                System.arraycopy(chars, offset, chars, gapEnd - moved, moved);
+                gapStart -= moved;
+                gapEnd -= moved;
+            }
+            else if(offset > gapStart){
+                int moved = offset - gapStart;
+                System.arraycopy(chars, gapEnd, chars, gapStart, moved);
+                gapStart += moved;
+                gapEnd += moved;
+            }
+        }
+
+        @Override
+        public int length(){
+            return chars.length - (gapEnd - gapStart);
+        }
+
+        @Override
+        public char charAt(int index){
+            return index < gapStart ? chars[index] : chars[index + gapEnd - gapStart];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end){
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString(){
+            return new String(chars, 0, gapStart) + new String(chars, gapEnd, chars.length - gapEnd);
+        }
+    }
+}
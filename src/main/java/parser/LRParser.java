@@ -1,6 +1,8 @@
 package parser;
 
 import constants.Status;
+import constants.TableFormat;
+import constants.TableMode;
 import grammar.Grammar;
 import grammar.Production;
 import util.Pair;
@@ -9,23 +11,62 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 class LRParser extends BaseParser {
 
-    private HashMap<Pair<Integer, String>, String> table;
+    private final ParseTable table;
 
+    private final Lexer lexer;
+
+    /** Builds a map view of the table, holding only the cells that aren't illegal states
+     * (see {@link LRParserWrapper#getParserTable()}). A lazy table is completed first.
+     */
     public HashMap<Pair<Integer, String>, String> getTable(){
-        return table;
+        complete();
+        HashMap<Pair<Integer, String>, String> result = new HashMap<>();
+        for(int state = 0; state < table.states(); state++)
+            for(int column = 0; column < table.width(); column++){
+                int action = table.get(state, column);
+                if(action != Action.ERROR)
+                    result.put(new Pair<>(state, table.symbol(column)), format(action));
+            }
+        return result;
     }
 
-    private HashMap<Pair<LinkedHashSet<Article>, String>, LinkedHashSet<Article>> functions;
+    private Automaton automaton;
+
+    private final TableMode mode;
+
+    private final ForkJoinPool pool;
+
+    /** Key of the grammar and mode the table is for, null if the table was read from a given file */
+    private final byte[] key;
+
+    /** Conflicts found while building the table, in the order they were resolved. Lazy tables add to it
+     * while parsing, it's only used while holding its lock.
+     */
+    private final ArrayList<String> conflicts = new ArrayList<>();
 
-    private static final String TERMINATOR = "$";
+    /** Actions of the conflicts kept by a generalized parser, null if conflicts are resolved */
+    private final ArrayList<int[]> alternatives;
 
+    private static final String TERMINATOR = Grammar.END;
 
-    /** LR(1) Parser. Takes as input the grammar to be used for parsing.
+    private static final String AUGMENTED_START = "S'";
+
+    private static final String TEXT_EXTENSION = ".out";
+
+    private static final String BINARY_EXTENSION = ".lrt";
+
+
+    /** LR Parser. Takes as input the grammar to be used for parsing.
      * <p>The parser reads the <code>Action Table </code> and <code> Jump Table </code>
      * from the file <code>data</code>.</p>
      * <p>In the file, there will be a matrix with items separated by spaces.
@@ -49,364 +90,502 @@ class LRParser extends BaseParser {
      * @author Musoaie Pavel-Radu
      */
 
-    public LinkedHashSet<LinkedHashSet<Article>> closures = new LinkedHashSet<>();
     protected LRParser(Grammar grammar, String data){
         super(grammar);
-        table = new HashMap<>();
-        functions = new HashMap<>();
-        readTable(data);
+        this.mode = TableMode.LALR;
+        this.pool = null;
+        this.key = null;
+        this.alternatives = null;
+        ParseTable loaded = loadBinaryTable(Path.of(data), ParseTable.forGrammar(grammar, AUGMENTED_START), null, false);
+        if(loaded == null){
+            loaded = ParseTable.forGrammar(grammar, AUGMENTED_START);
+            readTable(loaded, data, null);
+        }
+        loaded.compress();
+        table = loaded;
+        registerProductions();
+        lexer = new Lexer(table, TERMINATOR);
     }
 
     protected LRParser(Grammar grammar) {
+        this(grammar, TableMode.LALR);
+    }
+
+    /** Builds the parser's table in the given <code>mode</code>, unless a table file built for the same
+     * grammar and mode is found next to the grammar.
+     */
+    protected LRParser(Grammar grammar, TableMode mode) {
+        this(grammar, mode, null, null, false);
+    }
+
+    /** Builds the parser's table in the given <code>mode</code>, expanding the LR(0) item sets on
+     * <code>pool</code> if it isn't null (see {@link Automaton#build(ForkJoinPool)}). The table is the
+     * same as the one built sequentially. LR(1) item sets are always built sequentially, merging
+     * states depends on the order they are found in.
+     * <p>Tables are looked up by the key of the grammar and mode (see {@link TableFile#key}), first in
+     * <code>tableCache</code> if it isn't null, then in the table files of the mode next to the grammar (see
+     * {@link #tableFile}), a file built for a different grammar being ignored. The item sets are only built if no table is found,
+     * the new table being then stored in <code>tableCache</code>.</p>
+     * <p>If <code>lazy</code> is true and no table is found, the table is a {@link LazyTable}: no item set
+     * is built upfront, a state being expanded and its row built the first time a parse reaches it.
+     * Lazy tables are SLR(1) tables in {@link TableMode#SLR} mode, and canonical LR(1) tables in
+     * {@link TableMode#LR1} mode, whose states don't depend on each other. LALR(1) lookaheads depend
+     * on the whole automaton, so a lazy table can't be built in {@link TableMode#LALR} mode.</p>
+     */
+    protected LRParser(Grammar grammar, TableMode mode, ForkJoinPool pool, Path tableCache, boolean lazy) {
+        this(grammar, mode, pool, tableCache, lazy, false);
+    }
+
+    /** Builds the parser's table like {@link #LRParser(Grammar, TableMode, ForkJoinPool, Path, boolean)}, the
+     * checksum of a binary table file being verified before it's used if <code>verify</code> is true (see
+     * {@link TableFile#verify(Path)}), a damaged file being ignored like a file built for another grammar.
+     */
+    protected LRParser(Grammar grammar, TableMode mode, ForkJoinPool pool, Path tableCache, boolean lazy, boolean verify) {
         super(grammar);
-        table = new HashMap<>();
-        functions = new HashMap<>();
-        grammar.nonterminals.add("S'");
-        Production tempProd = new Production("S'", this.grammar.start, 0);
-        grammar.productions.add(new Production("S'", this.grammar.start, 0));
-        collection(); //LR(1) items
-
-        String filename = grammar.getFileName()+".out";
-
-
-        File file = new File(filename);
-        if(!file.exists()) {
-            createTable();
-            grammar.nonterminals.remove("S");
-            grammar.productions.remove(tempProd);
-//            writeTableToFile();
+        this.mode = mode;
+        this.pool = pool;
+        this.key = TableFile.key(grammar, mode);
+        this.alternatives = null;
+        if(lazy && mode == TableMode.LALR)
+            throw new IllegalArgumentException("LALR(1) tables can't be built lazily, use TableMode.SLR or TableMode.LR1");
+        ParseTable columns = ParseTable.forGrammar(grammar, AUGMENTED_START);
+
+        Path cached = tableCache == null ? null : tableCache.resolve(TableFile.hex(key) + BINARY_EXTENSION);
+        File text = new File(tableFile(grammar, mode, TEXT_EXTENSION));
+        ParseTable loaded = cached == null ? null : loadBinaryTable(cached, columns, key, verify);
+        if(loaded == null)
+            loaded = loadBinaryTable(Path.of(tableFile(grammar, mode, BINARY_EXTENSION)), columns, key, verify);
+        if(loaded == null && text.exists() && readTable(columns, text.getPath(), key))
+            loaded = columns;
+        if(loaded == null && lazy){
+            Automaton states = automaton(grammar.augmentedProduction(AUGMENTED_START));
+            if(mode == TableMode.LR1)
+                states.startCanonicalLR1();
+            else
+                states.start();
+            int width = columns.width();
+            loaded = new LazyTable(ParseTable.columnsOf(grammar, AUGMENTED_START), grammar.terminalCount(), states,
+                    state -> row(states, state, mode == TableMode.LR1 ? states.lookaheads(state)
+                            : Lookaheads.slr(states, grammar, state), width));
         }
-        else{
-            grammar.nonterminals.remove("S");
-            grammar.productions.remove(tempProd);
-            readTable(filename);
+        if(loaded == null){
+            collection(grammar.augmentedProduction(AUGMENTED_START));
+            loaded = columns;
+            createTable(loaded);
+            if(cached != null)
+                storeTable(loaded, cached);
         }
+        loaded.compress();
+        table = loaded;
+        registerProductions();
+        lexer = new Lexer(table, TERMINATOR);
     }
 
-    private void readTable(String data){
+    /** Generalized parser, building the table in the given <code>mode</code> without resolving its conflicts:
+     * a cell wanted by several actions keeps them all, and the parse follows each of them (see
+     * {@link GLREngine}). Table files and caches hold one action per cell, so the table is always built,
+     * and never stored.
+     */
+    protected LRParser(Grammar grammar, TableMode mode, boolean generalized) {
+        super(grammar);
+        if(!generalized)
+            throw new IllegalArgumentException("Use LRParser(grammar, mode) for a parser resolving its conflicts");
+        this.mode = mode;
+        this.pool = null;
+        this.key = null;
+        this.alternatives = new ArrayList<>();
+        ParseTable built = ParseTable.forGrammar(grammar, AUGMENTED_START);
+        collection(grammar.augmentedProduction(AUGMENTED_START));
+        createTable(built);
+        built.setAlternatives(alternatives.toArray(new int[0][]));
+        built.compress();
+        table = built;
+        registerProductions();
+        lexer = new Lexer(table, TERMINATOR);
+    }
+
+    /** Parser over a table read without its grammar, from a table file packaged with the application
+     * (see {@link TableGenerator}). The table holds everything parsing needs, the symbols of its columns
+     * and the left side and length of every production, but no grammar: the table can't be stored next
+     * to it, and there are no conflicts to report.
+     */
+    protected LRParser(ParseTable table){
+        super(null);
+        this.mode = null;
+        this.pool = null;
+        this.key = null;
+        this.alternatives = null;
+        table.compress();
+        this.table = table;
+        lexer = new Lexer(table, TERMINATOR);
+    }
+
+    /** @return the table file of <code>grammar</code> in <code>mode</code>, <code>grammar.out</code> for an LALR(1)
+     * table and <code>grammar.slr.out</code> or <code>grammar.lr1.out</code> for the other modes, so the table
+     * stored in one mode isn't found, and reported as built for another mode, by the parsers of the others
+     */
+    private static String tableFile(Grammar grammar, TableMode mode, String extension){
+        return grammar.getFileName() + (mode == TableMode.LALR ? "" : "." + mode.name().toLowerCase()) + extension;
+    }
+
+    /** Maps the binary table file <code>path</code> if it is one, was built for <code>key</code> (unless
+     * it is null) and has the same columns as <code>columns</code>.
+     * @param verify whether to check the file's checksum first, reading all of it
+     * @return the mapped table, or null if it wasn't loaded
+     */
+    private static ParseTable loadBinaryTable(Path path, ParseTable columns, byte[] key, boolean verify){
+        try{
+            if(!Files.exists(path) || !TableFile.isBinary(path))
+                return null;
+            ParseTable mapped = TableFile.map(path, key);
+            if(verify)
+                TableFile.verify(path);
+            if(!mapped.hasSameColumns(columns)){
+                System.out.println(path + " was built for another grammar, ignoring it.");
+                return null;
+            }
+            return mapped;
+        }
+        catch(IOException ex){
+            System.out.println(ex.getMessage());
+            return null;
+        }
+    }
+
+    /** Stores a built table in the cache directory, through a temporary file so that other processes
+     * never map a partly written table.
+     */
+    private void storeTable(ParseTable table, Path path){
+        try {
+            Files.createDirectories(path.getParent());
+            Path temporary = Files.createTempFile(path.getParent(), TableFile.hex(key), ".tmp");
+            try {
+                TableFile.write(table, temporary, key);
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+        catch(IOException ex){
+            System.out.println("Couldn't store the table in the cache: " + ex.getMessage());
+        }
+    }
+
+    /** Reads a text table file. Files written by {@link #writeTableToFile()} start with a <code>#</code>
+     * line holding the key they were built for.
+     * @param key the key the table has to have been built for, any if null
+     * @return false if the file doesn't exist or was built for another key, the table being left empty
+     */
+    private static boolean readTable(ParseTable table, String data, byte[] key){
         File file = new File(data);
         try{
             Scanner sc = new Scanner(file);
+            String stored = sc.hasNext("#") ? sc.nextLine().substring(1).trim() : null;
+            if(key != null && !TableFile.hex(key).equals(stored)){
+                System.out.println(data + (stored == null ? " has no grammar key" : " was built for another grammar or table mode")
+                        + ", ignoring it.");
+                return false;
+            }
             int status = 0;
-            String input;
+            int width = table.width();
             while(sc.hasNext()) {
-                //Terminals columns
-                Iterator<String> it = grammar.terminals.iterator();
-                for (int i = 0; i < grammar.terminals.size(); i++) {
-                    input = sc.next(); //get next symbol
-                    table.put(new Pair<>(status, it.next()), input);
-                }
-                //$ column
-                input = sc.next();
-                table.put(new Pair<>(status, "$"), input);
-                //Nonterminals columns
-                it = grammar.nonterminals.iterator();
-                for(int i = 0; i < grammar.nonterminals.size(); i++){
-                    input = sc.next();
-                    table.put(new Pair<>(status, it.next()), input);
-                }
+                //Terminals, $ and nonterminals columns, in table order
+                for(int column = 0; column < width && sc.hasNext(); column++)
+                    table.set(status, column, Action.decode(sc.next()));
                 status++;
             }
         }
         catch(FileNotFoundException f){
             System.out.println("Action/Jump tables file does not exist.");
+            return false;
         }
+        return true;
 
     }
 
 
-    private String scan(String input, int start){
-        StringBuilder terminal = new StringBuilder(); //scan for a terminal in the input
-        while(input.charAt(start) == ' ') start++; //pass over white space
-        while(input.charAt(start) != ' '){
-            terminal.append(input.charAt(start));
-            start++;
-            if(isTerminal(terminal.toString()) || terminal.toString().equals("$"))
-                return terminal.toString();
-            if(start == input.length()) return "";
+    @Override
+    public Status parse(String input) {
+        if(input == null) return Status.REJECTED; //reject if null parameter
+        try {
+            return parse(new StringTokenSource(lexer, input, table.column(TERMINATOR)));
+        }
+        catch(IOException ex){
+            return Status.REJECTED; //in-memory input, never happens
+        }
+    }
+
+    /** Parses the input while reading it, in chunks of {@link ReaderTokenSource#CHUNK_SIZE} characters,
+     * so memory use doesn't depend on the input's size. Reading stops as soon as the input is rejected.
+     */
+    @Override
+    public Status parse(Reader input) throws IOException {
+        if(input == null) return Status.REJECTED;
+        return parse(new ReaderTokenSource(lexer, input, table.column(TERMINATOR)));
+    }
+
+    /** Feeds the tokens of <code>tokens</code> to a fresh {@link ParseEngine} until it decides. */
+    private Status parse(TokenSource tokens) throws IOException {
+        if(alternatives != null)
+            return new GLREngine(table, table.column(TERMINATOR)).parse(tokens);
+        ParseEngine engine = new ParseEngine(table);
+        int end = table.column(TERMINATOR);
+        while(true){
+            int column = tokens.next();
+            int result = engine.feed(column);
+            if(result == ParseEngine.ACCEPTED)
+                return Status.ACCEPTED;
+            if(result != ParseEngine.SHIFTED || column == end)
+                return Status.REJECTED;
         }
-        return "";
     }
 
 
-    private boolean isTerminal(String test){
-        return grammar.terminals.contains(test);
+    /** Builds the item sets reachable from the augmented production: LR(1) item sets in
+     * {@link TableMode#LR1} mode, LR(0) ones otherwise.
+     */
+    private void collection(Production augmented){
+        automaton = automaton(augmented);
+        if(mode == TableMode.LR1)
+            automaton.buildLR1();
+        else if(pool != null)
+            automaton.build(pool);
+        else
+            automaton.build();
     }
 
-    private boolean validatePop(String prod, String symbol, int index){
-        int i = symbol.length() - 1;
-        index--;
-        while(prod.charAt(index) == symbol.charAt(i)){
-            if(i == 0 || index == 0) return true;
-            index--;
-            i--;
+    /** @return an automaton over the grammar's productions and <code>augmented</code>, without any state */
+    private Automaton automaton(Production augmented){
+        Production[] productions = grammar.productions.toArray(new Production[grammar.productions.size() + 1]);
+        productions[productions.length - 1] = augmented;
+        return new Automaton(grammar, productions);
+    }
+
+    /** @return the lookaheads of the completed items of every state, aligned with the state's items */
+    private BitSet[][] lookaheads(){
+        switch(mode){
+            case SLR:
+                return Lookaheads.slr(automaton, grammar);
+            case LR1:
+                BitSet[][] result = new BitSet[automaton.states()][];
+                for(int state = 0; state < result.length; state++)
+                    result[state] = automaton.lookaheads(state);
+                return result;
+            default:
+                return Lookaheads.lalr(automaton, grammar);
         }
-        return false;
     }
 
+    /** Fills the table from the automaton. Cells wanted by two actions are resolved like yacc does,
+     * shifting rather than reducing and reducing by the earlier production, and reported in
+     * {@link #getConflicts()}. A generalized parser keeps every action of the cell instead.
+     */
+    private void createTable(ParseTable table){
+            int l = automaton.states();
+            table.ensureStates(l);
+            BitSet[][] lookaheads = lookaheads();
+            for(int i = 0; i < l; i++){
+                int[] row = row(automaton, i, lookaheads[i], table.width());
+                for(int column = 0; column < row.length; column++)
+                    if(row[column] != Action.ERROR)
+                        table.set(i, column, row[column]);
+            }
+    }
 
-    @Override
-    public Status parse(String input) {
-        if(input == null) return Status.REJECTED; //reject if null parameter
-        input += TERMINATOR; //append end symbol
-        input = input.trim();
-        input = input.replaceAll("\\s{1,}",""); //remove whitespaces
-        Stack<Pair<Integer, String>> stack = new Stack<>();
-        stack.push(new Pair<>(0, TERMINATOR));
-        String terminal;
-        for(int i = 0; i < input.length(); i++){
-                int copy = i - 1;
-                terminal = scan(input, i);
-                //move i by the terminal size
-                if(!terminal.isEmpty())
-                    i += terminal.length() - 1;
-                else return Status.REJECTED;
-                Pair<Integer, String> pair = new Pair<>(stack.peek().first, terminal);
-                String action;
-                if(table.containsKey(pair)) {
-                    action = table.get(pair);
-                }
-                else action = "x";
-                if(action.charAt(0) == 'd'){
-                    Pair<Integer, String> newPair = new Pair<>();
-                    newPair.first = Integer.parseInt(action.substring(1));
-                    newPair.second = terminal;
-                    stack.push(newPair);
-                }
-                else if(action.charAt(0) == 'r'){
-                    int productionIndex = Integer.parseInt(action.substring(1)) - 1;
-                    Production production = grammar.productions.get(productionIndex);
-                    int index = production.result.length();
-                    String symbol = stack.peek().second;
-                    while(index != 0){
-                        if(validatePop(production.result, symbol, index)){
-                            index -= symbol.length();
-                            stack.pop();
-                            symbol = stack.peek().second;
+    /** Builds the row of the expanded state <code>state</code> of <code>automaton</code>, given the
+     * lookaheads of its items.
+     * @return the <code>width</code> cells of the row
+     */
+    private int[] row(Automaton automaton, int state, BitSet[] lookaheads, int width){
+            int[] row = new int[width];
+            int[] items = automaton.items(state);
+            for(int k = 0; k < items.length; k++){
+                int item = items[k];
+                int symbol = automaton.symbolAfterDot(item);
+                if(symbol == -1){ //reduce
+                    Production production = automaton.production(item);
+                    if(!automaton.isAugmented(item)) {
+                        BitSet follow = lookaheads[k];
+                        for (int urmator = follow.nextSetBit(0); urmator != -1; urmator = follow.nextSetBit(urmator + 1)) {
+                            setAction(row, state, urmator, Action.reduce(production.getState()));
                         }
-                        else return Status.REJECTED;
                     }
-                    Pair<Integer, String> newPair = new Pair<>();
-                    newPair.second = production.start;
-                    int status = stack.peek().first;
-                    newPair.first = Integer.parseInt(table.get(new Pair<>(status, newPair.second)));
-                    stack.push(newPair);
-                    i = copy; // stay on the same symbol
-                }
-                else if(action.equals("acc"))
-                    return Status.ACCEPTED;
-                else return Status.REJECTED;
-        }
-        return Status.REJECTED;
-    }
-
-
-    private LinkedHashSet<Article> closure(LinkedHashSet<Article> input){
-        LinkedHashSet<Article> copy = new LinkedHashSet<>(input);
-        LinkedHashSet<Article> result;
-        LinkedHashSet<String> visitedNonTerminals = new LinkedHashSet<>();
-        do{
-            result = new LinkedHashSet<>(copy);
-            HashSet<Article> temp = new HashSet<>(copy);
-
-
-            Iterator<Article> iterator = temp.iterator();
-            while(iterator.hasNext()){
-                Article article = iterator.next();
-                if(canBeExtended(article)){
-                    String nonterminal = findSymbolAfterDot(article);
-                    if(!visitedNonTerminals.contains(nonterminal) && grammar.nonterminals.contains(nonterminal)) {
-                        ArrayList<Production> productions = this.grammar.getListOfProductionForNonTerminal(nonterminal);
-                        productions.forEach(
-                                production -> copy.add(new Article(production))
-                        );
-                        visitedNonTerminals.add(nonterminal);
+                    else{
+                        setAction(row, state, grammar.symbolId(TERMINATOR), Action.ACCEPT_ACTION);
                     }
                 }
-                iterator.remove();
+                else {
+                    int j = automaton.transition(state, symbol);
+                    if (grammar.isTerminal(symbol)) //shift
+                        setAction(row, state, symbol, Action.shift(j));
+                    else //jump
+                        row[symbol] = Action.jump(j);
+                }
             }
-        }
-        while(!result.equals(copy));
-        return result;
+            return row;
     }
 
-
-    private LinkedHashSet<Article> jump(LinkedHashSet<Article> articles, String symbol){
-
-        LinkedHashSet<Article> newArticles = new LinkedHashSet<>();
-
-        for(Article article: articles){
-            if(findSymbolAfterDot(article).equals(symbol)) {
-                Article article1 = new Article(article.production);
-                article1.dot = article.dot + symbol.length();
-                newArticles.add(article1);
-            }
+    /** Sets a cell of the action table, resolving and recording a conflict if it already holds another action.
+     * A generalized parser records the conflict and adds the action to the cell's actions.
+     */
+    private void setAction(int[] row, int state, int column, int action){
+        int existing = row[column];
+        if(existing == Action.ERROR || existing == action){
+            row[column] = action;
+            return;
         }
-        return closure(newArticles);
-    }
-
-    private void collection(){
-
-        LinkedHashSet<Article> temp = new LinkedHashSet<>();
-        temp.add(new Article(grammar.productions.get(grammar.productions.size()-1)));
-        closures.add(closure(temp));
-        ArrayList<Boolean> found = new ArrayList<>();
-        found.add(false);
-        int index = 0;
-
-        while(!isDone(found)){
-            int i = 0;
-            while(i < found.size() && found.get(i))
-                i++;
-            index = i;
-            LinkedHashSet<Article> articles;
-            Iterator<LinkedHashSet<Article>> iterator = closures.iterator();
-            for(int j = 0; j < index && iterator.hasNext(); j++) iterator.next();
-            articles = iterator.next();
-
-            LinkedHashSet<String> symbols = getSymbolsAfterDot(articles);
-            found.set(index, true);
-            for(String symbol: symbols){
-                LinkedHashSet<Article> temp1 = jump(articles, symbol);
-                functions.put(new Pair<>(articles, symbol), temp1);
-                if(closures.add(temp1))
-                    found.add(false);
+        synchronized(conflicts){
+            if(alternatives != null){
+                String conflict = "State " + state + ", on " + grammar.symbol(column) + ": " + describe(existing) + " / "
+                        + describe(action) + ", kept all";
+                if(Action.kind(existing) != Action.CONFLICT){
+                    alternatives.add(new int[]{existing, action});
+                    row[column] = Action.conflict(alternatives.size() - 1);
+                }
+                else {
+                    int[] actions = alternatives.get(Action.operand(existing));
+                    for(int kept: actions)
+                        if(kept == action)
+                            return;
+                    actions = Arrays.copyOf(actions, actions.length + 1);
+                    actions[actions.length - 1] = action;
+                    alternatives.set(Action.operand(existing), actions);
+                }
+                conflicts.add(conflict);
+                return;
             }
+            int kept = resolve(existing, action);
+            conflicts.add("State " + state + ", on " + grammar.symbol(column) + ": " + describe(existing) + " / "
+                    + describe(action) + ", kept " + describe(kept));
+            row[column] = kept;
         }
     }
 
-    private void createTable(){
-            int l = closures.size();
-            Iterator<LinkedHashSet<Article>> iterator = closures.iterator();
-            for(int i = 0; i < l; i++){
-                LinkedHashSet<Article> articles = iterator.next();
-                LinkedHashSet<Article> functionArticle;
-                for(Article article: articles){
-                    if(article.dot == article.production.result.length()){ //reduce
-                        boolean isStartSymbol = article.production.result.equals(grammar.start);
-
-                        if(!isStartSymbol) {
-                            for (String urmator : grammar.followSet.get(article.production.start)) {
-                                Pair<Integer, String> pair = new Pair<>(i, urmator);
-                                table.put(pair, "r" + article.production.state);
-                            }
-                        }
-                        else{
-                            table.put(new Pair<>(i, "$"), "acc");
-                        }
-                    }
-                    else {
-                        Pair<String, Integer> terminal = grammar.firstTerminal(article.production.result,
-                                article.dot);
-                        if (terminal.second == article.dot) { //shift
-                            Pair<LinkedHashSet<Article>, String> argument =
-                                    new Pair<>(articles, terminal.first);
-                            functionArticle = functions.get(argument);
-                            Integer j = findIndexOfClosure(functionArticle);
-                            table.put(new Pair<>(i, terminal.first), "d" + j);
-                        }
-                        else{  //jump
-                            String nonterminal = grammar.firstNonTerminal(article.production.result,
-                                    article.dot).first;
+    private static int resolve(int first, int second){
+        if(Action.kind(first) == Action.SHIFT || Action.kind(first) == Action.ACCEPT)
+            return first;
+        if(Action.kind(second) == Action.SHIFT || Action.kind(second) == Action.ACCEPT)
+            return second;
+        return Action.operand(first) <= Action.operand(second) ? first : second;
+    }
 
-                            Pair<LinkedHashSet<Article>, String> argument =
-                                    new Pair<>(articles, nonterminal);
+    private String describe(int action){
+        switch(Action.kind(action)){
+            case Action.SHIFT:
+                return "shift " + Action.operand(action);
+            case Action.REDUCE:
+                for(Production production: grammar.productions)
+                    if(production.getState() == Action.operand(action))
+                        return "reduce " + production;
+                return "reduce " + Action.operand(action);
+            case Action.CONFLICT:
+                StringBuilder actions = new StringBuilder();
+                for(int kept: alternatives.get(Action.operand(action)))
+                    actions.append(actions.length() == 0 ? "" : " / ").append(describe(kept));
+                return actions.toString();
+            default:
+                return Action.format(action);
+        }
+    }
 
-                            functionArticle = functions.get(argument);
-                            Integer j = findIndexOfClosure(functionArticle);
-                            table.put(new Pair<>(i, nonterminal), j.toString());
-                        }
-                    }
-                }
-            }
+    /** @return the cell in the textual table format, the actions of a conflict kept by a generalized parser
+     * being separated by <code>/</code>
+     */
+    private String format(int action){
+        if(Action.kind(action) != Action.CONFLICT)
+            return Action.format(action);
+        StringBuilder actions = new StringBuilder();
+        for(int kept: table.alternatives(action))
+            actions.append(actions.length() == 0 ? "" : "/").append(Action.format(kept));
+        return actions.toString();
     }
 
+    /** @return the conflicts found while building the table, empty if the table was read from a file.
+     * The conflicts of a lazy table are the ones of the states built so far.
+     */
+    public List<String> getConflicts(){
+        synchronized(conflicts){
+            return List.copyOf(conflicts);
+        }
+    }
 
-    //UTIL
-    private String findSymbolAfterDot(Article article){
-        String result = "";
-        Pair<String, Integer> terminal = this.grammar.firstTerminal(article.production.result, article.dot);
-        if(terminal.second != article.dot)
-            return this.grammar.firstNonTerminal(article.production.result, article.dot).first;
-        return terminal.first;
+
+    /** Compiles the table into a parser class, see {@link ParserCompiler}. A lazy table is completed first.
+     * @return the compiled parser, or <code>fallback</code> if the table couldn't be compiled
+     */
+    protected Parser compile(Parser fallback){
+        complete();
+        int end = table.column(TERMINATOR);
+        return ParserCompiler.compile(table, input -> new StringTokenSource(lexer, input, end), fallback);
     }
 
+    /** @return the status of every input, parsing the prefixes shared by several inputs once */
+    public List<Status> parseAllSharingPrefixes(List<String> inputs){
+        return new PrefixBatch(table, lexer, table.column(TERMINATOR)).parseAll(inputs);
+    }
 
+    /** @return <code>text</code> parsed once, to be edited and parsed again incrementally */
+    public IncrementalParse parseIncrementally(String text){
+        return new IncrementalParse(table, lexer, table.column(TERMINATOR), Objects.requireNonNull(text));
+    }
 
-    private LinkedHashSet<String> getSymbolsAfterDot(LinkedHashSet<Article> articles){
-        LinkedHashSet<String> result = new LinkedHashSet<>();
-        articles.forEach(
-                article -> {
-                    if(!findSymbolAfterDot(article).isEmpty()) result.add(findSymbolAfterDot(article));
-                }
-        );
-        return result;
+    /** Builds the states a lazy table hasn't built yet, so that the table can be read or stored whole. */
+    private void complete(){
+        if(table instanceof LazyTable lazy)
+            lazy.expandAll();
     }
 
-    private boolean canBeExtended(Article article){
-        return grammar.nonterminals.contains(findSymbolAfterDot(article));
+    /** @return the number of states whose row was built, every state unless the table is lazy */
+    public int getBuiltStates(){
+        return table instanceof LazyTable lazy ? lazy.built() : table.states();
     }
 
-    private boolean isDone(ArrayList<Boolean> found){
-        for(Boolean b: found)
-            if(!b) return false;
-        return true;
+    /** Writes the table, completed if it's lazy, as a binary table file holding the parser's key. */
+    void writeBinaryTable(Path path) throws IOException {
+        complete();
+        TableFile.write(table, path, key);
     }
 
-    private int findIndexOfClosure(LinkedHashSet<Article> closure){
-        Iterator<LinkedHashSet<Article>> iterator = closures.iterator();
-        int index = 0;
-        while(iterator.hasNext()){
-            LinkedHashSet<Article> next = iterator.next();
-            if(next.equals(closure))
-                return index;
-            index++;
-        }
-        return -1;
+    /** Stores in the table, for every production, its left side and the number of symbols on its right side. */
+    private void registerProductions(){
+        for(Production production: grammar.productions)
+            table.setProduction(production.getState(), production.lhs(), production.length());
     }
 
+
     protected void writeTableToFile(){
-        String filename = grammar.getFileName()+".out";
+        writeTableToFile(TableFormat.TEXT);
+    }
+
+    protected void writeTableToFile(TableFormat format){
+        if(grammar == null){
+            System.out.println("The table was loaded without its grammar, there is no grammar file to store it next to.");
+            return;
+        }
+        complete();
+        if(format == TableFormat.BINARY){
+            try {
+                writeBinaryTable(Path.of(tableFile(grammar, mode, BINARY_EXTENSION)));
+            }
+            catch(IOException ex){
+                System.out.println(ex.getMessage());
+            }
+            return;
+        }
+        String filename = tableFile(grammar, mode, TEXT_EXTENSION);
 
         try {
             FileWriter file = new FileWriter(filename);
-            int l = closures.size();
+            if(key != null)
+                file.write("# " + TableFile.hex(key) + "\n");
+            int l = table.states();
+            int width = table.width();
             for (int i = 0; i < l; i++) {
-                Pair<Integer, String> tableInput;
-                for (String symbol : grammar.terminals) {
-                    tableInput = new Pair<>(i, symbol);
-                    if (table.containsKey(tableInput)){
-                        file.write(table.get(tableInput) + " ");
-                    }
-                    else{
-                        file.write("x ");
-                    }
-                }
-                tableInput = new Pair<>(i, "$");
-                if(table.containsKey(tableInput)){
-                    file.write(table.get(tableInput) + " ");
-                }
-                else{
-                    file.write("x ");
+                for (int column = 0; column < width; column++) {
+                    file.write(Action.format(table.get(i, column)));
+                    if(column < width - 1)
+                        file.write(" ");
                 }
-
-                int k = grammar.nonterminals.size();
-                Iterator<String> nonterminals = grammar.nonterminals.iterator();
-                String nonterminal;
-                for(int j = 0; j < k - 1; j++){
-                    nonterminal  = nonterminals.next();
-                    tableInput = new Pair<>(i, nonterminal);
-                    if(table.containsKey(tableInput)){
-                        file.write(table.get(tableInput) + " ");
-                    }
-                    else file.write("x ");
-                }
-                nonterminal = nonterminals.next();
-                tableInput = new Pair<>(i, nonterminal);
-                if(table.containsKey(tableInput))
-                    file.write(table.get(tableInput));
-                else file.write("x");
-
                 file.write("\n");
             }
             file.close();
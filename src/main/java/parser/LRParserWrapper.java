@@ -1,25 +1,184 @@
 package parser;
 
 import constants.Status;
+import constants.TableFormat;
+import constants.TableMode;
 import grammar.Grammar;
 import grammar.GrammarWrapper;
 import util.Pair;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 
 /** Wrapper for the LRParser object, use for extracting needed data
  * (Parser Table, etc.)
+ * <br><br> A parser doesn't modify its grammar and can't be modified once built, so one instance can be
+ * shared by every thread (see {@link Parser#parseAll(List)}).
  */
 public class LRParserWrapper extends ParserWrapper{
 
     private final LRParser parser;
 
+    /** Builds an LALR(1) parser for the grammar. */
     public LRParserWrapper(GrammarWrapper grammar){
         parser = new LRParser(grammar.getGrammar());
     }
 
+    /** Builds a parser for the grammar, computing the lookaheads of its reductions in the given <code>mode</code>:
+     * <br><br> <code>TableMode.SLR</code> reduces on the FOLLOW sets, the smallest table with the most conflicts.
+     * <br><br> <code>TableMode.LALR</code> reduces on the LALR(1) lookaheads, with the same states as SLR.
+     * <br><br> <code>TableMode.LR1</code> builds LR(1) states, merging the ones that can be merged without
+     * conflicts, for grammars that are LR(1) but not LALR(1).
+     * <br><br> A table file stored next to the grammar (see {@link #storeParserTable(TableFormat)}) is used
+     * instead, if it was built for the same grammar and mode.
+     */
+    public LRParserWrapper(GrammarWrapper grammar, TableMode mode){
+        parser = new LRParser(grammar.getGrammar(), mode);
+    }
+
+    /** Builds a parser for the grammar like {@link #LRParserWrapper(GrammarWrapper, TableMode)}, expanding
+     * the item sets on <code>pool</code>, one level of states at a time. The states are numbered like in
+     * the sequential build, so the table (and the stored files) are identical. <code>TableMode.LR1</code>
+     * item sets are built sequentially whatever the pool.
+     * <br><br> Eg. <code>new LRParserWrapper(grammar, TableMode.LALR, ForkJoinPool.commonPool())</code>
+     */
+    public LRParserWrapper(GrammarWrapper grammar, TableMode mode, ForkJoinPool pool){
+        parser = new LRParser(grammar.getGrammar(), mode, pool, null, false);
+    }
+
+    /** Builds a parser for the grammar like {@link #LRParserWrapper(GrammarWrapper, TableMode)}, keeping its
+     * table in the <code>tableCache</code> directory, created if needed. The tables are named after a
+     * SHA-256 hash of the grammar's symbols, productions and start symbol and of the mode, so a table
+     * is only reused for the grammar and mode it was built for, and editing the grammar builds a new one.
+     * <br><br> When the table is found, the item sets aren't built at all: the table file is mapped in memory.
+     * The directory can be shared by several grammars and processes.
+     */
+    public LRParserWrapper(GrammarWrapper grammar, TableMode mode, Path tableCache){
+        parser = new LRParser(grammar.getGrammar(), mode, null, tableCache, false);
+    }
+
+    /** Builds a parser for the grammar like {@link #LRParserWrapper(GrammarWrapper, TableMode, Path)}, the
+     * item sets being expanded on <code>pool</code> when the table isn't in the cache.
+     */
+    public LRParserWrapper(GrammarWrapper grammar, TableMode mode, ForkJoinPool pool, Path tableCache){
+        parser = new LRParser(grammar.getGrammar(), mode, pool, tableCache, false);
+    }
+
+    /** Builds a parser for the grammar like {@link #LRParserWrapper(GrammarWrapper, TableMode, Path)}, checking
+     * the whole table file found in the cache or next to the grammar against its checksum if <code>verify</code>
+     * is true. A damaged file is then ignored, the table being built, and stored again in the cache.
+     * <br><br> Without it only the header of the file is checked when it's loaded, the cells being checked
+     * as they are read: a cell no table can hold throws an <code>IllegalStateException</code> naming the
+     * file, but a cell damaged into another valid action isn't found.
+     */
+    public LRParserWrapper(GrammarWrapper grammar, TableMode mode, Path tableCache, boolean verify){
+        parser = new LRParser(grammar.getGrammar(), mode, null, tableCache, false, verify);
+    }
+
+    /** Builds a parser for the grammar like {@link #LRParserWrapper(GrammarWrapper, TableMode)}, building
+     * its table lazily if <code>lazy</code> is true: no item set is built upfront, each state being
+     * expanded, and its row of the table built, the first time a parse reaches it. Built states are kept
+     * and shared by every thread using the parser.
+     * <br><br> <code>TableMode.SLR</code> builds SLR(1) states and <code>TableMode.LR1</code> canonical LR(1)
+     * states, which may be more than the merged states of an eager <code>TableMode.LR1</code> parser but
+     * accept the same inputs. <code>TableMode.LALR</code> lookaheads depend on every state, so it can't be
+     * lazy, an <code>IllegalArgumentException</code> is thrown.
+     * <br><br> {@link #getParserTable()} and {@link #storeParserTable(TableFormat)} build the remaining
+     * states first, a stored table being loaded whole by the next parsers (see {@link #getBuiltStates()}).
+     * Completing a lazy <code>TableMode.LR1</code> table builds every canonical LR(1) state, which can be
+     * many times more than an eager parser's, the table of an eager parser is better for storing.
+     */
+    public LRParserWrapper(GrammarWrapper grammar, TableMode mode, boolean lazy){
+        parser = new LRParser(grammar.getGrammar(), mode, null, null, lazy);
+    }
+
+    private LRParserWrapper(LRParser parser){
+        this.parser = parser;
+    }
+
+    /** Loads a parser from a binary table file packaged with the application, eg. by {@link TableGenerator}
+     * while building the jar, without reading the grammar nor building any item set. Nothing is written
+     * to the file system, so it works on read-only file systems.
+     * <br><br> The resource is looked up with the thread's context class loader, or the one of this class
+     * if the thread has none. The parser has no grammar: {@link #storeParserTable()} does nothing and
+     * {@link #getConflicts()} is empty.
+     * <br><br> Eg. <code>LRParserWrapper.fromClasspath("tables/grammar.lrt")</code>
+     * @param resource the name of the resource, without a leading <code>/</code>
+     * @throws IOException if the resource doesn't exist or isn't a binary table file of this version
+     */
+    public static LRParserWrapper fromClasspath(String resource) throws IOException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return fromClasspath(loader == null ? LRParserWrapper.class.getClassLoader() : loader, resource);
+    }
+
+    /** Loads a parser from a binary table file found by <code>loader</code>, see {@link #fromClasspath(String)}. */
+    public static LRParserWrapper fromClasspath(ClassLoader loader, String resource) throws IOException {
+        try(InputStream input = loader.getResourceAsStream(resource)){
+            if(input == null)
+                throw new FileNotFoundException("No parser table resource " + resource);
+            return new LRParserWrapper(new LRParser(TableFile.read(input, resource)));
+        }
+    }
+
+    /** Compiles the parser's table into a class of its own, in which every state is code instead of a row of
+     * the table, for grammars that are parsed a lot. The returned parser gives the same statuses as this one.
+     * <br><br> The class is generated at runtime, compiled with the JDK's compiler and defined as a hidden
+     * class, so compiling needs a JDK at runtime, not a JRE or a <code>jlink</code> image without the
+     * <code>java.compiler</code> module. It only pays off for small tables, of at most 256 states: for larger
+     * ones, or without a JDK, this parser is returned instead. A message is only printed if compiling fails.
+     * @return the compiled parser, or this parser
+     */
+    public Parser compile(){
+        return parser.compile(this);
+    }
+
+    /** Parses every input of <code>inputs</code> like {@link #parseAll(List)}, parsing the prefixes shared by
+     * several inputs only once, for batches of inputs differing in their ends, eg. generated ones. The
+     * inputs are sorted, then parsed in order, the stack being copied where the next inputs branch off
+     * and restored for them.
+     * <br><br> Sorting costs more than it saves when the inputs share little, {@link #parseAll(List)} is
+     * better then.
+     * @return the status of every input, in the same order as <code>inputs</code>
+     */
+    public List<Status> parseAllSharingPrefixes(List<String> inputs){
+        return parser.parseAllSharingPrefixes(inputs);
+    }
+
+    /** Parses <code>text</code>, keeping what's needed to parse it again quickly after small edits, for inputs
+     * that are validated again on every change, eg. in an editor. See {@link IncrementalParse#edit(int, int, String)}.
+     * <br><br> Eg. <code>IncrementalParse document = parser.parseIncrementally(text);
+     * Status status = document.edit(offset, removed, inserted);</code>
+     * @return the parsed document, whose status is {@link IncrementalParse#getStatus()}
+     */
+    public IncrementalParse parseIncrementally(String text){
+        return parser.parseIncrementally(text);
+    }
+
+    /** Returns the number of states of the table built so far, which is every state unless the parser
+     * was built lazily (see {@link #LRParserWrapper(GrammarWrapper, TableMode, boolean)}).
+     */
+    public int getBuiltStates(){
+        return parser.getBuiltStates();
+    }
+
+    /** Returns the conflicts found while building the table, like
+     * <code>State 3, on a: shift 5 / reduce 2. B -> ε, kept shift 5</code>. Shifts are preferred to
+     * reductions and, between two reductions, the production declared first wins.
+     * <br><br> The list is empty if the grammar has no conflicts in the parser's mode, or if the table
+     * was read from a file or the table cache.
+     */
+    public List<String> getConflicts(){
+        return parser.getConflicts();
+    }
+
     /** Returns the LR Parsers Table as a Map, with the following meaning:
      * <br><br>
      * If we have for example the pair <code>[0, E] = 3</code>, that symbolizes a jump on state <b>0</b> when the input is <code>E</code> to state <code>3</code>
@@ -27,6 +186,8 @@ public class LRParserWrapper extends ParserWrapper{
      * <br><br> If we have for example the pair <code>[2, A] = r6</code>, that symbolizes a reduce action on the Stack with the production <b>6</b>
      *<br><br> If we have for example the pair <code>[4, B] = x</code>, that symbolizes an illegal state
      * <br><br> If we have for example the pair <code>[1, p] = acc</code>, that symbolizes the acceptance state for the input
+     * <br><br> The map is built on each call from the parser's internal table and only holds the cells that
+     * aren't illegal states.
      * @return Parser's table(Action and Jump Table's grouped together)
      */
     public HashMap<Pair<Integer, String>, String> getParserTable(){
@@ -46,13 +207,36 @@ public class LRParserWrapper extends ParserWrapper{
      * <br> where on the first line are the nonterminals, on the second the terminals, then the columns
      * will be in the following order: <br><br>
      * <code>A B C E $ a b + *</code>
+     * <br><br> The matrix is preceded by a <code>#</code> line holding the hash of the grammar and mode,
+     * a file whose hash doesn't match the parser's being ignored. The tables of the other modes are stored
+     * in <code>grammar.slr.out</code> and <code>grammar.lr1.out</code>.
      */
     public void storeParserTable(){
         parser.writeTableToFile();
     }
 
+    /** Stores the Parser's table in the resource files, in the given <code>format</code>.
+     * <br><br> <code>TableFormat.TEXT</code> writes the <code>grammar.out</code> matrix described in
+     * {@link #storeParserTable()}. <code>TableFormat.BINARY</code> writes <code>grammar.lrt</code>, a
+     * versioned binary file holding the hash of the grammar and mode, the symbols, the productions and
+     * the packed table rows, which the
+     * parser maps in memory instead of parsing when it finds it next to the grammar. The binary file is
+     * preferred over the text one when both exist.
+     */
+    public void storeParserTable(TableFormat format){
+        parser.writeTableToFile(format);
+    }
+
     @Override
     public Status parse(String input) {
         return parser.parse(input);
     }
+
+    /** Parses the input while reading it, keeping only a fixed-size chunk of it in memory.
+     * @see Parser#parse(Reader)
+     */
+    @Override
+    public Status parse(Reader input) throws IOException {
+        return parser.parse(input);
+    }
 }
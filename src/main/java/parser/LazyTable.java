@@ -0,0 +1,108 @@
+package parser;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/** A parse table whose rows are built the first time a parse reaches their state.
+ * <p>Expanding a state (closing it and computing its transitions, see {@link Automaton#expand}) only
+ * registers the states it leads to, so a parse only pays for the states it visits, and a grammar with
+ * many states starts without building any but the first one.</p>
+ * <p>Built rows are dense and never change. They are published with release/acquire semantics, so a
+ * lookup of a built row doesn't lock, building a row is done under the table's lock, once per state.</p>
+ * <p>{@link #expandAll()} builds every remaining state, after which the table is complete and can be
+ * stored like any other one. The states are numbered in the order they were found.</p>
+ */
+final class LazyTable extends ParseTable {
+
+    private static final VarHandle ROWS = MethodHandles.arrayElementVarHandle(int[][].class);
+
+    private final Automaton automaton;
+
+    /** Builds the row of an expanded state */
+    private final IntFunction<int[]> builder;
+
+    /** Row of every built state, null for the others */
+    private volatile int[][] rows = new int[16][];
+
+    private int built;
+
+    /** @param automaton an automaton whose first state was registered but not expanded
+     * @param builder builds the row of a state of <code>automaton</code> once it is expanded
+     */
+    LazyTable(String[] symbols, int terminalCount, Automaton automaton, IntFunction<int[]> builder){
+        super(symbols, terminalCount);
+        this.automaton = automaton;
+        this.builder = builder;
+    }
+
+    @Override
+    int get(int state, int column){
+        int[][] current = rows;
+        if(state < current.length){
+            int[] row = (int[]) ROWS.getAcquire(current, state);
+            if(row != null)
+                return row[column];
+        }
+        int[] row = build(state);
+        return row == null ? Action.ERROR : row[column];
+    }
+
+    @Override
+    int action(int state, int column){
+        return get(state, column);
+    }
+
+    @Override
+    int jump(int state, int column){
+        return get(state, column);
+    }
+
+    /** @return the number of states found so far, built or not */
+    @Override
+    synchronized int states(){
+        return automaton.states();
+    }
+
+    /** @return the number of states whose row was built */
+    synchronized int built(){
+        return built;
+    }
+
+    /** Builds the row of every state, including the states found while doing so. */
+    synchronized void expandAll(){
+        for(int state = 0; state < automaton.states(); state++)
+            build(state);
+    }
+
+    /** @return the row of <code>state</code>, built if it wasn't, or null if there is no such state */
+    private synchronized int[] build(int state){
+        if(state >= automaton.states())
+            return null;
+        int[][] current = rows;
+        if(state < current.length && current[state] != null)
+            return current[state];
+        if(automaton.items(state) == null)
+            automaton.expand(state);
+        int[] row = builder.apply(state);
+        if(state >= current.length){
+            current = Arrays.copyOf(current, Math.max(state + 1, 2 * current.length));
+            rows = current;
+        }
+        ROWS.setRelease(current, state, row);
+        built++;
+        return row;
+    }
+
+    /** Rows are kept dense, only the states in use are built. */
+    @Override
+    void compress(){
+
+    }
+
+    @Override
+    void set(int state, int column, int action){
+        throw new UnsupportedOperationException("Lazy parse tables are read-only");
+    }
+}
@@ -0,0 +1,102 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/** Trie of the grammar's terminals, used to split the input into tokens.
+ * <p>The trie is flattened into arrays: the edges leaving a node are stored one after the other,
+ * sorted by character, so stepping is a binary search and scanning doesn't allocate.</p>
+ * <p>Tokens are matched with <b>maximal munch</b>: the longest terminal that is a prefix of the
+ * input wins, so with both <code>=</code> and <code>==</code> as terminals, <code>==</code> is a
+ * single token.</p>
+ */
+final class Lexer {
+
+    /** Returned by {@link #step(int, char)} when the trie has no such edge. */
+    static final int DEAD = -1;
+
+    static final int ROOT = 0;
+
+    private final int[] edgeStart;
+
+    private final char[] edgeChars;
+
+    private final int[] edgeTargets;
+
+    private final int[] accepts;
+
+    private final int longest;
+
+    /** Builds the lexer for the terminal columns <code>[0, count)</code> of <code>table</code>,
+     * leaving out the <code>$</code> column.
+     */
+    Lexer(ParseTable table, String terminator){
+        ArrayList<TreeMap<Character, Integer>> children = new ArrayList<>();
+        ArrayList<Integer> accept = new ArrayList<>();
+        int longest = 0;
+        children.add(new TreeMap<>());
+        accept.add(-1);
+        for(int column = 0; column < table.terminalColumns(); column++){
+            String terminal = table.symbol(column);
+            if(terminal.isEmpty() || terminal.equals(terminator))
+                continue;
+            int node = ROOT;
+            for(int i = 0; i < terminal.length(); i++){
+                Integer next = children.get(node).get(terminal.charAt(i));
+                if(next == null){
+                    next = children.size();
+                    children.get(node).put(terminal.charAt(i), next);
+                    children.add(new TreeMap<>());
+                    accept.add(-1);
+                }
+                node = next;
+            }
+            if(accept.get(node) == -1)
+                accept.set(node, column);
+            longest = Math.max(longest, terminal.length());
+        }
+        this.longest = longest;
+
+        int nodes = children.size();
+        edgeStart = new int[nodes + 1];
+        accepts = new int[nodes];
+        int edges = 0;
+        for(TreeMap<Character, Integer> child: children)
+            edges += child.size();
+        edgeChars = new char[edges];
+        edgeTargets = new int[edges];
+        int edge = 0;
+        for(int node = 0; node < nodes; node++){
+            edgeStart[node] = edge;
+            accepts[node] = accept.get(node);
+            for(var entry: children.get(node).entrySet()){
+                edgeChars[edge] = entry.getKey();
+                edgeTargets[edge] = entry.getValue();
+                edge++;
+            }
+        }
+        edgeStart[nodes] = edge;
+    }
+
+    /** @return the node reached from <code>node</code> on <code>c</code>, or {@link #DEAD} */
+    int step(int node, char c){
+        int index = Arrays.binarySearch(edgeChars, edgeStart[node], edgeStart[node + 1], c);
+        return index < 0 ? DEAD : edgeTargets[index];
+    }
+
+    /** @return the column of the terminal ending at <code>node</code>, or <code>-1</code> */
+    int accept(int node){
+        return accepts[node];
+    }
+
+    /** Length of the longest terminal. */
+    int longest(){
+        return longest;
+    }
+
+    /** @return true if no terminal continues past <code>node</code> */
+    boolean isLeaf(int node){
+        return edgeStart[node] == edgeStart[node + 1];
+    }
+}
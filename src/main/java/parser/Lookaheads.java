@@ -0,0 +1,154 @@
+package parser;
+
+import grammar.Grammar;
+import grammar.Production;
+import util.Digraph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/** Lookaheads of the reductions of an LR(0) {@link Automaton}.
+ * <p>Both methods return, for every state, an array aligned with the state's items, holding the
+ * lookahead terminals of every completed item and <code>null</code> for the others.</p>
+ */
+final class Lookaheads {
+
+    private Lookaheads(){
+
+    }
+
+    /** SLR(1): a completed item reduces on the FOLLOW set of its left side. The augmented start
+     * production only accepts on <code>$</code>.
+     */
+    static BitSet[][] slr(Automaton automaton, Grammar grammar){
+        BitSet[][] result = new BitSet[automaton.states()][];
+        for(int state = 0; state < result.length; state++)
+            result[state] = slr(automaton, grammar, state);
+        return result;
+    }
+
+    /** SLR(1) lookaheads of the items of a single, expanded, state. They only depend on the state's own
+     * items, which is what lets {@link LazyTable} build its rows one state at a time.
+     */
+    static BitSet[] slr(Automaton automaton, Grammar grammar, int state){
+        int[] items = automaton.items(state);
+        BitSet[] result = new BitSet[items.length];
+        for(int i = 0; i < items.length; i++){
+            if(automaton.symbolAfterDot(items[i]) != -1)
+                continue;
+            if(automaton.isAugmented(items[i])){
+                result[i] = new BitSet();
+                result[i].set(grammar.symbolId(Grammar.END));
+            }
+            else
+                result[i] = grammar.follow(automaton.production(items[i]).lhs());
+        }
+        return result;
+    }
+
+    /** LALR(1), computed with DeRemer and Pennello's relations over the nonterminal transitions
+     * <code>(p, A)</code> of the automaton:
+     * <li><code>DR(p, A)</code>, the terminals read from the state <code>r</code> reached by <code>(p, A)</code>;</li>
+     * <li><code>(p, A) reads (r, C)</code>, if <code>C</code> is nullable;</li>
+     * <li><code>(p, A) includes (p', B)</code>, if <code>B -> b A c</code>, <code>c</code> is nullable
+     * and <code>b</code> leads from <code>p'</code> to <code>p</code>;</li>
+     * <li><code>(q, A -> w) lookback (p, A)</code>, if <code>w</code> leads from <code>p</code> to <code>q</code>.</li>
+     * <p><code>Read</code> is <code>DR</code> closed under <i>reads</i>, <code>Follow</code> is <code>Read</code>
+     * closed under <i>includes</i>, both with {@link Digraph}, and the lookaheads of a reduction are the
+     * union of <code>Follow</code> over its <i>lookback</i> transitions. Every relation is linear in the
+     * size of the automaton, no LR(1) item set is built.</p>
+     */
+    static BitSet[][] lalr(Automaton automaton, Grammar grammar){
+        int states = automaton.states();
+        long symbols = grammar.symbolCount() + 1L; //the augmented start may not be interned
+        int end = grammar.symbolId(Grammar.END);
+
+        //number the nonterminal transitions
+        HashMap<Long, Integer> ids = new HashMap<>();
+        ArrayList<int[]> gotos = new ArrayList<>(); //{from, nonterminal, to}
+        for(int state = 0; state < states; state++){
+            int[] targets = automaton.transitions(state);
+            for(int t = 0; t < targets.length; t += 2)
+                if(!grammar.isTerminal(targets[t])){
+                    ids.put(state * symbols + targets[t], gotos.size());
+                    gotos.add(new int[]{ state, targets[t], targets[t + 1] });
+                }
+        }
+        int count = gotos.size();
+
+        //DR and reads
+        BitSet[] sets = new BitSet[count];
+        int[][] reads = new int[count][];
+        for(int g = 0; g < count; g++){
+            int target = gotos.get(g)[2];
+            sets[g] = new BitSet();
+            ArrayList<Integer> read = new ArrayList<>();
+            int[] targets = automaton.transitions(target);
+            for(int t = 0; t < targets.length; t += 2){
+                if(grammar.isTerminal(targets[t]))
+                    sets[g].set(targets[t]);
+                else if(grammar.isNullable(targets[t]))
+                    read.add(ids.get(target * symbols + targets[t]));
+            }
+            for(int item: automaton.items(target))
+                if(automaton.isAugmented(item) && automaton.symbolAfterDot(item) == -1)
+                    sets[g].set(end); //the start symbol is followed by the end of the input
+            reads[g] = toArray(read);
+        }
+        Digraph.propagate(reads, sets);
+
+        //includes and lookback, walking every production from every transition on its left side
+        ArrayList<ArrayList<Integer>> includes = new ArrayList<>();
+        for(int g = 0; g < count; g++)
+            includes.add(new ArrayList<>());
+        HashMap<Long, ArrayList<Integer>> lookback = new HashMap<>();
+        long productions = automaton.productionCount();
+        for(int g = 0; g < count; g++){
+            int from = gotos.get(g)[0];
+            for(Production production: grammar.productionsOf(gotos.get(g)[1])){
+                int nullableFrom = production.length(); //the symbols from nullableFrom on are nullable
+                while(nullableFrom > 0 && grammar.isNullable(production.symbol(nullableFrom - 1)))
+                    nullableFrom--;
+                int state = from;
+                for(int i = 0; i < production.length(); i++){
+                    int symbol = production.symbol(i);
+                    if(!grammar.isTerminal(symbol) && i + 1 >= nullableFrom)
+                        includes.get(ids.get(state * symbols + symbol)).add(g);
+                    state = automaton.transition(state, symbol);
+                }
+                lookback.computeIfAbsent(state * productions + automaton.indexOf(production), k -> new ArrayList<>()).add(g);
+            }
+        }
+        int[][] includesRelation = new int[count][];
+        for(int g = 0; g < count; g++)
+            includesRelation[g] = toArray(includes.get(g));
+        Digraph.propagate(includesRelation, sets);
+
+        BitSet[][] result = new BitSet[states][];
+        for(int state = 0; state < states; state++){
+            int[] items = automaton.items(state);
+            result[state] = new BitSet[items.length];
+            for(int i = 0; i < items.length; i++){
+                if(automaton.symbolAfterDot(items[i]) != -1)
+                    continue;
+                BitSet lookaheads = new BitSet();
+                if(automaton.isAugmented(items[i]))
+                    lookaheads.set(end);
+                ArrayList<Integer> transitions = lookback.get(state * productions + automaton.productionIndex(items[i]));
+                if(transitions != null)
+                    for(int g: transitions)
+                        lookaheads.or(sets[g]);
+                result[state][i] = lookaheads;
+            }
+        }
+        return result;
+    }
+
+    private static int[] toArray(ArrayList<Integer> list){
+        int[] result = new int[list.size()];
+        for(int i = 0; i < result.length; i++)
+            result[i] = list.get(i);
+        return result;
+    }
+}
@@ -0,0 +1,173 @@
+package parser;
+
+import java.util.Arrays;
+
+/** Shift/reduce driver over a {@link ParseTable}.
+ * <p>The stack only keeps states, in a growable <code>int[]</code>. A reduction pops as many states as
+ * the production has symbols on its right side, then jumps on its left side symbol, so once the
+ * stack has grown to the input's nesting depth feeding a token doesn't allocate.</p>
+ * <p>Tokens are fed one at a time as table columns, the end of the input being the <code>$</code>
+ * column.</p>
+ * <p>Some tables can reduce forever without shifting a token, eg. a cyclic grammar's
+ * (<code>S : | AA</code> and <code>A : S</code>), or an empty production whose jump comes back to the
+ * state that reduced it, the SLR lookaheads of a hidden left recursion allowing it on tokens that can't follow.
+ * Once a token has run {@link #CHECKED_AFTER} reductions, the engine looks for that loop at each reduction,
+ * the tokens reducing less paying nothing for it.</p>
+ */
+final class ParseEngine {
+
+    /** The token was shifted, feed the next one. */
+    static final int SHIFTED = 0;
+
+    /** The input was accepted. */
+    static final int ACCEPTED = 1;
+
+    /** The input was rejected, the engine has to be {@link #reset()} before reuse. */
+    static final int REJECTED = 2;
+
+    /** The token has several actions (see {@link Action#CONFLICT}), the engine stopped before taking any of
+     * them, its stack holding the states before the conflict.
+     */
+    static final int CONFLICT = 3;
+
+    /** The reductions of the token would go on forever without shifting it, so the input is rejected. The stack
+     * holds the states reached when the loop was found.
+     */
+    static final int ENDLESS = 4;
+
+    /** Reductions a token runs before the engine checks the next ones for a loop */
+    static final int CHECKED_AFTER = 256;
+
+    private final ParseTable table;
+
+    private int[] states;
+
+    private int top;
+
+    /** The lowest top of the stack since the loop check started: the states above it were all pushed since */
+    private int low;
+
+    /** The states above <code>low</code> at some reduction, the loop check comparing the next ones to them */
+    private int[] saved = new int[0];
+
+    private int savedTop;
+
+    private int sinceSaved;
+
+    private int saveEvery;
+
+    ParseEngine(ParseTable table){
+        this.table = table;
+        this.states = new int[32];
+        reset();
+    }
+
+    void reset(){
+        top = 0;
+        states[0] = 0;
+    }
+
+    /** Runs every reduction <code>column</code> triggers, then shifts it.
+     * @param column the table column of the token, a negative value meaning an unknown token
+     * @return {@link #SHIFTED}, {@link #ACCEPTED}, {@link #REJECTED}, {@link #ENDLESS}, or {@link #CONFLICT} in
+     * the table of a generalized parser
+     */
+    int feed(int column){
+        if(column < 0)
+            return REJECTED;
+        for(int reductions = 1; ; reductions++){
+            int action = table.action(states[top], column);
+            switch (Action.kind(action)) {
+                case Action.SHIFT -> {
+                    push(Action.operand(action));
+                    return SHIFTED;
+                }
+                case Action.REDUCE -> {
+                    int production = Action.operand(action);
+                    top -= table.rhsLength(production);
+                    if(top < 0)
+                        return REJECTED;
+                    int popped = top;
+                    int jump = table.jump(states[top], table.lhsColumn(production));
+                    if(Action.kind(jump) != Action.GOTO)
+                        return REJECTED;
+                    push(Action.operand(jump));
+                    if(reductions >= CHECKED_AFTER && looping(popped, reductions == CHECKED_AFTER))
+                        return ENDLESS;
+                }
+                case Action.ACCEPT -> {
+                    return ACCEPTED;
+                }
+                case Action.CONFLICT -> {
+                    return CONFLICT;
+                }
+                default -> {
+                    return REJECTED;
+                }
+            }
+        }
+    }
+
+    /** For the parsers running their own stacks: checks whether the reductions of <code>column</code> from the
+     * stack of <code>states</code> up to <code>top</code> never end, like {@link #feed(int)} does.
+     */
+    static boolean endless(ParseTable table, int[] states, int top, int column){
+        ParseEngine engine = new ParseEngine(table);
+        engine.restore(Arrays.copyOf(states, top + 1));
+        return engine.feed(column) == ENDLESS;
+    }
+
+    /** Checks the reductions of a token for a loop, once a reduction popped the stack to <code>popped</code> and
+     * jumped. From the moment a state is pushed, the reductions only depend on it, as long as they don't pop it:
+     * <ul>
+     * <li>if a state is pushed again above it before that, the reductions will repeat themselves higher up the
+     * stack forever. The states above the lowest top of the stack were all pushed since it was reached, so
+     * there are more of them than states only if two are the same.</li>
+     * <li>if the stack doesn't grow, the reductions loop over the same stacks. Like in Brent's cycle detection, the
+     * stack is compared to a copy taken after 1, 2, 4, 8... reductions, which finds the loop within a few times its
+     * length once the lowest top is reached.</li>
+     * </ul>
+     * @param start whether the check starts, at {@link #CHECKED_AFTER} reductions
+     * @return true if the reductions are endless
+     */
+    private boolean looping(int popped, boolean start){
+        if(start || popped < low){
+            low = popped;
+            savedTop = -1;
+        }
+        if(top - low > table.states())
+            return true;
+        int length = top - low;
+        if(savedTop == top && Arrays.equals(states, low + 1, top + 1, saved, 0, length))
+            return true;
+        if(savedTop < 0 || ++sinceSaved == saveEvery){
+            saveEvery = savedTop < 0 ? 1 : 2 * saveEvery;
+            sinceSaved = 0;
+            if(saved.length < length)
+                saved = new int[2 * length];
+            System.arraycopy(states, low + 1, saved, 0, length);
+            savedTop = top;
+        }
+        return false;
+    }
+
+    /** @return a copy of the stack, to be put back with {@link #restore(int[])} */
+    int[] snapshot(){
+        return Arrays.copyOf(states, top + 1);
+    }
+
+    /** Puts back a stack copied by {@link #snapshot()}, the engine going on from where it was copied. */
+    void restore(int[] snapshot){
+        if(snapshot.length > states.length)
+            states = Arrays.copyOf(snapshot, 2 * snapshot.length);
+        else
+            System.arraycopy(snapshot, 0, states, 0, snapshot.length);
+        top = snapshot.length - 1;
+    }
+
+    private void push(int state){
+        if(++top == states.length)
+            states = Arrays.copyOf(states, states.length * 2);
+        states[top] = state;
+    }
+}
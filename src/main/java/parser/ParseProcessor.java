@@ -0,0 +1,262 @@
+package parser;
+
+import constants.Status;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** A <code>Flow.Processor</code> parsing the inputs it receives, publishing their statuses in the same order.
+ * <p>At most <code>capacity</code> inputs are requested from the upstream publisher at a time, every one of
+ * them being parsed on the executor as soon as it arrives, so up to <code>capacity</code> inputs are parsed
+ * in parallel. An input is requested again only once a status has been delivered, so a slow subscriber
+ * slows the upstream publisher down instead of growing a queue.</p>
+ * <p>No method blocks: parsing, and the calls to the subscriber, happen on the executor, never on the
+ * thread of the upstream publisher. The processor accepts a single subscriber, and can be subscribed to
+ * a single publisher.</p>
+ * <br> Eg. <code>publisher.subscribe(new ParseProcessor(parser, executor, 64))</code>
+ */
+public class ParseProcessor implements Flow.Processor<String, Status> {
+
+    private final Parser parser;
+
+    private final Executor executor;
+
+    private final int capacity;
+
+    /** The inputs being parsed or waiting for demand, in the order they arrived */
+    private final ArrayDeque<CompletableFuture<Status>> pending = new ArrayDeque<>();
+
+    /** Number of drain requests, the one taking it from 0 running the drain loop */
+    private final AtomicInteger drains = new AtomicInteger();
+
+    private Flow.Subscription upstream;
+
+    private Flow.Subscriber<? super Status> downstream;
+
+    /** Whether <code>onSubscribe</code> of the subscriber has returned */
+    private boolean subscribed;
+
+    private long demand;
+
+    private boolean completed;
+
+    private Throwable failure;
+
+    private boolean cancelled;
+
+    private boolean terminated;
+
+    /** A processor parsing on the common <code>ForkJoinPool</code>, with at most 256 inputs in flight. */
+    public ParseProcessor(Parser parser){
+        this(parser, ForkJoinPool.commonPool(), 256);
+    }
+
+    /** @param parser the parser, shared by all the parsing tasks
+     * @param executor runs the parsing and the calls to the subscriber
+     * @param capacity the most inputs requested and not yet delivered as a status
+     */
+    public ParseProcessor(Parser parser, Executor executor, int capacity){
+        if(capacity < 1)
+            throw new IllegalArgumentException("The capacity has to be positive, got " + capacity);
+        this.parser = Objects.requireNonNull(parser);
+        this.executor = Objects.requireNonNull(executor);
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Status> subscriber) {
+        Objects.requireNonNull(subscriber);
+        boolean first;
+        synchronized(this){
+            first = downstream == null;
+            if(first)
+                downstream = subscriber;
+        }
+        if(first){
+            subscriber.onSubscribe(new Downstream());
+            synchronized(this){
+                subscribed = true;
+            }
+            drain();
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onError(new IllegalStateException("A ParseProcessor has a single subscriber"));
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription);
+        boolean accepted;
+        synchronized(this){
+            accepted = upstream == null && !cancelled;
+            if(accepted)
+                upstream = subscription;
+        }
+        if(accepted)
+            subscription.request(capacity);
+        else
+            subscription.cancel();
+    }
+
+    @Override
+    public void onNext(String input) {
+        Objects.requireNonNull(input);
+        CompletableFuture<Status> status;
+        synchronized(this){
+            if(completed || cancelled)
+                return;
+            status = pending.size() == capacity ? null : CompletableFuture.supplyAsync(() -> parser.parse(input), executor);
+            if(status != null)
+                pending.add(status);
+        }
+        if(status == null){
+            fail(new IllegalStateException("The publisher sent more inputs than the " + capacity + " requested"));
+            drain();
+            return;
+        }
+        status.whenComplete((result, exception) -> drain());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable);
+        synchronized(this){
+            if(completed)
+                return;
+            completed = true;
+            failure = throwable;
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized(this){
+            completed = true;
+        }
+        drain();
+    }
+
+    /** Runs the drain loop on the executor, unless it's already running, in which case it loops once more. */
+    private void drain(){
+        if(drains.getAndIncrement() == 0)
+            executor.execute(this::deliver);
+    }
+
+    /** Delivers the statuses at the head of the queue while there is demand, then the completion. */
+    private void deliver(){
+        int missed = 1;
+        do {
+            while(true){
+                CompletableFuture<Status> head;
+                Throwable error = null;
+                boolean complete = false;
+                synchronized(this){
+                    if(terminated || !subscribed)
+                        break;
+                    if(cancelled){
+                        pending.clear();
+                        break;
+                    }
+                    head = pending.peek();
+                    if(head == null){
+                        if(!completed)
+                            break;
+                        terminated = true;
+                        error = failure;
+                        complete = error == null;
+                    } else {
+                        if(!head.isDone() || demand == 0)
+                            break;
+                        pending.poll();
+                        demand--;
+                    }
+                }
+                if(complete){
+                    downstream.onComplete();
+                    break;
+                }
+                if(error != null){
+                    downstream.onError(error);
+                    break;
+                }
+                Status status;
+                try {
+                    status = head.join();
+                } catch (CompletionException e) {
+                    fail(e.getCause());
+                    continue;
+                }
+                downstream.onNext(status);
+                Flow.Subscription subscription;
+                synchronized(this){
+                    subscription = completed ? null : upstream;
+                }
+                if(subscription != null)
+                    subscription.request(1);
+            }
+            missed = drains.addAndGet(-missed);
+        } while(missed != 0);
+    }
+
+    /** Stops on a failure, cancelling the upstream publisher and dropping the pending inputs. */
+    private void fail(Throwable throwable){
+        Flow.Subscription subscription;
+        synchronized(this){
+            subscription = completed ? null : upstream;
+            completed = true;
+            failure = throwable;
+            pending.clear();
+        }
+        if(subscription != null)
+            subscription.cancel();
+    }
+
+    private final class Downstream implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            synchronized(ParseProcessor.this){
+                if(terminated || cancelled)
+                    return;
+                if(n > 0){
+                    demand += n;
+                    if(demand < 0)
+                        demand = Long.MAX_VALUE;
+                }
+            }
+            if(n <= 0)
+                fail(new IllegalArgumentException("The demand has to be positive, got " + n));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            Flow.Subscription subscription;
+            synchronized(ParseProcessor.this){
+                if(cancelled)
+                    return;
+                cancelled = true;
+                subscription = upstream;
+            }
+            if(subscription != null)
+                subscription.cancel();
+            drain();
+        }
+    }
+}
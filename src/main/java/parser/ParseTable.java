@@ -0,0 +1,241 @@
+package parser;
+
+import grammar.Grammar;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/** Dense Action/Jump table.
+ * <p>Every grammar symbol gets a column id, in the same order used by the <code>.out</code> files:</p>
+ * <p><b>terminal[1] terminal[2] ..... $ nonterminal[1] nonterminal[2] ...</b></p>
+ * <p>Rows are stored one after the other in a flat <code>int[]</code>, each cell holding an action
+ * packed by {@link Action}. A table loaded from a binary table file reads its rows straight from
+ * the mapped file instead, and can't be modified (see {@link TableFile}).</p>
+ * <p>Once built, a table is {@link #compress() compressed}: the dense rows are replaced by a
+ * {@link CompressedTable} and the table can't be modified anymore either.</p>
+ * <p>{@link LazyTable} builds its rows on demand instead, overriding the lookups.</p>
+ * <p>The table of a generalized parser also holds the actions of its {@link Action#CONFLICT} cells.</p>
+ */
+class ParseTable {
+
+    private final String[] symbols;
+
+    private final HashMap<String, Integer> columns;
+
+    private final int terminalCount;
+
+    private int[] cells;
+
+    private final IntBuffer mapped;
+
+    /** The file a mapped table was read from, for the errors of its cells */
+    private final String source;
+
+    private CompressedTable compressed;
+
+    private int states;
+
+    private int[] lhsColumns = new int[0];
+
+    private int[] rhsLengths = new int[0];
+
+    private int[][] alternatives = new int[0][];
+
+    ParseTable(String[] symbols, int terminalCount){
+        this.symbols = symbols;
+        this.terminalCount = terminalCount;
+        this.columns = new HashMap<>();
+        for(int i = 0; i < symbols.length; i++)
+            columns.put(symbols[i], i);
+        this.cells = new int[Math.max(symbols.length, 1) * 16];
+        this.mapped = null;
+        this.source = null;
+        this.states = 0;
+    }
+
+    /** Read-only table whose rows are the <code>states * symbols.length</code> cells of <code>rows</code>, read
+     * from the file <code>source</code>.
+     */
+    ParseTable(String[] symbols, int terminalCount, IntBuffer rows, int states, int[] lhsColumns, int[] rhsLengths,
+               String source){
+        this.symbols = symbols;
+        this.terminalCount = terminalCount;
+        this.columns = new HashMap<>();
+        for(int i = 0; i < symbols.length; i++)
+            columns.put(symbols[i], i);
+        this.cells = null;
+        this.mapped = rows;
+        this.source = source;
+        this.states = states;
+        this.lhsColumns = lhsColumns;
+        this.rhsLengths = rhsLengths;
+    }
+
+    /** Builds the column layout for <code>grammar</code>: its terminals, the <code>$</code> symbol,
+     * then its nonterminals (the augmented start symbol <code>S'</code> always being the last one).
+     * <p>Columns are the grammar's symbol ids (see {@link Grammar#symbolId(String)}).</p>
+     */
+    static ParseTable forGrammar(Grammar grammar, String augmentedStart){
+        return new ParseTable(columnsOf(grammar, augmentedStart), grammar.terminalCount());
+    }
+
+    /** @return the symbol of every column of the tables of <code>grammar</code>, see {@link #forGrammar} */
+    static String[] columnsOf(Grammar grammar, String augmentedStart){
+        int count = grammar.symbolCount();
+        boolean augmented = grammar.symbolId(augmentedStart) != -1;
+        String[] symbols = new String[count + (augmented ? 0 : 1)];
+        for(int i = 0; i < count; i++)
+            symbols[i] = grammar.symbol(i);
+        if(!augmented)
+            symbols[count] = augmentedStart;
+        return symbols;
+    }
+
+    int width(){
+        return symbols.length;
+    }
+
+    int states(){
+        return states;
+    }
+
+    /** Number of Action columns (terminals and <code>$</code>), the Jump columns come after them. */
+    int terminalColumns(){
+        return terminalCount;
+    }
+
+    String symbol(int column){
+        return symbols[column];
+    }
+
+    /** @return the column of <code>symbol</code>, or <code>-1</code> if it isn't a grammar symbol */
+    int column(String symbol){
+        Integer column = columns.get(symbol);
+        return column == null ? -1 : column;
+    }
+
+    /** Records the column of the left side of production number <code>production</code> and how many
+     * symbols its right side has, which is how many states a reduction pops from the stack.
+     */
+    void setProduction(int production, int lhsColumn, int rhsLength){
+        if(production >= lhsColumns.length){
+            int size = Math.max(production + 1, lhsColumns.length * 2);
+            lhsColumns = Arrays.copyOf(lhsColumns, size);
+            rhsLengths = Arrays.copyOf(rhsLengths, size);
+        }
+        lhsColumns[production] = lhsColumn;
+        rhsLengths[production] = rhsLength;
+    }
+
+    int lhsColumn(int production){
+        return lhsColumns[production];
+    }
+
+    int rhsLength(int production){
+        return rhsLengths[production];
+    }
+
+    int productions(){
+        return lhsColumns.length;
+    }
+
+    /** Records the actions of the {@link Action#CONFLICT} cells, the cell <code>Action.conflict(i)</code> having
+     * the actions <code>alternatives[i]</code>.
+     */
+    void setAlternatives(int[][] alternatives){
+        this.alternatives = alternatives;
+    }
+
+    /** @return the actions of the {@link Action#CONFLICT} cell <code>action</code> */
+    int[] alternatives(int action){
+        return alternatives[Action.operand(action)];
+    }
+
+    int get(int state, int column){
+        if(state >= states)
+            return Action.ERROR;
+        if(compressed != null)
+            return compressed.get(state, column);
+        if(mapped != null)
+            return checked(mapped.get(state * symbols.length + column), state, column);
+        return cells[state * symbols.length + column];
+    }
+
+    /** The rows of a mapped table aren't checked when it's loaded (see {@link TableFile}): a cell no table can
+     * hold, which the parse would follow out of the table, is reported when it's read.
+     * @throws IllegalStateException if the cell is damaged
+     */
+    private int checked(int action, int state, int column){
+        int operand = Action.operand(action);
+        boolean valid = switch (Action.kind(action)) {
+            case Action.ERROR, Action.ACCEPT -> operand == 0;
+            case Action.SHIFT, Action.GOTO -> operand < states;
+            case Action.REDUCE -> operand < lhsColumns.length;
+            default -> false; //the conflicts of generalized parsers are never stored
+        };
+        if(!valid)
+            throw new IllegalStateException(source + " is corrupted, state " + state + " has the action "
+                    + Integer.toHexString(action) + " on " + symbols[column]);
+        return action;
+    }
+
+    /** The action to take in <code>state</code> on the terminal <code>column</code>. Unlike {@link #get},
+     * a compressed table answers with the state's default reduction instead of an error.
+     */
+    int action(int state, int column){
+        if(compressed != null)
+            return compressed.action(state, column);
+        return get(state, column);
+    }
+
+    /** The reduction <code>state</code> takes on the terminals it has no action for once the table is compressed
+     * (see {@link CompressedTable}), or an error if it has none.
+     */
+    int defaultReduction(int state){
+        if(compressed != null)
+            return compressed.defaultReduction(state);
+        return CompressedTable.defaultReduction(column -> get(state, column), terminalCount);
+    }
+
+    /** The jump in <code>state</code> on the nonterminal <code>column</code>, after a reduction. Unlike
+     * {@link #get}, a compressed table answers with the column's default jump instead of an error.
+     */
+    int jump(int state, int column){
+        if(compressed != null)
+            return compressed.jump(state, column);
+        return get(state, column);
+    }
+
+    /** Replaces the dense rows by a {@link CompressedTable}. Mapped tables are left as they are, their
+     * rows being in the page cache rather than on the heap.
+     */
+    void compress(){
+        if(cells == null)
+            return;
+        compressed = new CompressedTable(cells, states, symbols.length, terminalCount);
+        cells = null;
+    }
+
+    /** @return true if both tables have the same symbols in the same columns */
+    boolean hasSameColumns(ParseTable other){
+        return terminalCount == other.terminalCount && Arrays.equals(symbols, other.symbols);
+    }
+
+    void set(int state, int column, int action){
+        if(cells == null)
+            throw new UnsupportedOperationException("Mapped and compressed parse tables are read-only");
+        ensureStates(state + 1);
+        cells[state * symbols.length + column] = action;
+    }
+
+    /** Makes sure the table has at least <code>count</code> rows, new rows being filled with errors. */
+    void ensureStates(int count){
+        if(count <= states)
+            return;
+        int needed = count * symbols.length;
+        if(needed > cells.length)
+            cells = Arrays.copyOf(cells, Math.max(needed, cells.length * 2));
+        states = count;
+    }
+}
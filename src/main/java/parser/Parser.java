@@ -2,6 +2,16 @@ package parser;
 
 import constants.Status;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
 public interface Parser {
 
 
@@ -13,4 +23,67 @@ public interface Parser {
 
     Status parse(String input);
 
+    /** Method that parses the characters read from <code>input</code>. Expects only terminals.
+     * <p>By default the whole input is read in memory, then parsed with {@link #parse(String)}.
+     * Parsers able to work on a stream override it.</p>
+     * @param input
+     * @return Either <code>Status.ACCEPTED</code>, or <code>Status.REJECTED</code> based on the <code>input</code>
+     * @throws IOException if reading fails
+     */
+    default Status parse(Reader input) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[8192];
+        int read;
+        while((read = input.read(buffer)) != -1)
+            builder.append(buffer, 0, read);
+        return parse(builder.toString());
+    }
+
+    /** Method that parses the bytes read from <code>channel</code>, decoded with <code>charset</code>.
+     * Expects only terminals.
+     * @param channel
+     * @param charset
+     * @return Either <code>Status.ACCEPTED</code>, or <code>Status.REJECTED</code> based on the input
+     * @throws IOException if reading fails
+     */
+    default Status parse(ReadableByteChannel channel, Charset charset) throws IOException {
+        return parse(Channels.newReader(channel, charset));
+    }
+
+    /** Parses every input of <code>inputs</code>, spreading them over the cores of the common
+     * <code>ForkJoinPool</code>. Parsers are immutable once built, so one instance serves every thread.
+     * @param inputs
+     * @return the status of every input, in the same order as <code>inputs</code>
+     */
+    default List<Status> parseAll(List<String> inputs) {
+        return inputs.parallelStream().map(this::parse).toList();
+    }
+
+    /** Parses every input of <code>inputs</code> in parallel, see {@link #parseAll(List)}. The inputs are
+     * only read as the returned stream is consumed, so they don't have to fit in memory.
+     * @param inputs
+     * @return an ordered stream of the status of every input, in the same order as <code>inputs</code>
+     */
+    default Stream<Status> parseAll(Stream<String> inputs) {
+        return inputs.parallel().map(this::parse);
+    }
+
+    /** Parses <code>input</code> on the common <code>ForkJoinPool</code>, see {@link #parseAsync(String, Executor)}.
+     * @param input
+     * @return a future completed with the status of <code>input</code>
+     */
+    default CompletableFuture<Status> parseAsync(String input) {
+        return CompletableFuture.supplyAsync(() -> parse(input));
+    }
+
+    /** Parses <code>input</code> on <code>executor</code>, without blocking the calling thread. For a stream
+     * of inputs, {@link ParseProcessor} bounds the inputs in flight.
+     * @param input
+     * @param executor
+     * @return a future completed with the status of <code>input</code>
+     */
+    default CompletableFuture<Status> parseAsync(String input, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> parse(input), executor);
+    }
+
 }
@@ -0,0 +1,261 @@
+package parser;
+
+import constants.Status;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/** Compiles a finished {@link ParseTable} into a class parsing with the table's states as code.
+ * <p>The generated parser loops over a <code>switch</code> on the current state, calling the state's own
+ * method, a <code>switch</code> on the current token, which javac turns into a <code>tableswitch</code> or
+ * <code>lookupswitch</code> instruction. Shifts and reductions are written inline in the cases, the jump
+ * after a reduction being a small static method per nonterminal. Each state's default reduction (see
+ * {@link CompressedTable}) is its <code>default</code> case. Every method stays small, so the JIT compiles
+ * and inlines them (HotSpot never compiles a method over 8000 bytes of bytecode).</p>
+ * <p>Only tables of at most {@link #MAX_STATES} states are compiled: the code of a larger table doesn't fit
+ * in the instruction cache the way its compressed rows fit in the data cache, and the interpreter is
+ * faster (a 401 states table parsed about 2 times slower compiled, 69 and 162 states tables 5 to 15%
+ * faster).</p>
+ * <p>The source is compiled in memory with the platform's <code>javax.tools</code> compiler and defined
+ * as a hidden class of this package with {@link MethodHandles.Lookup#defineHiddenClass}, so it's unloaded
+ * with the parser using it. The generated class implements {@link Parser}, and only sees the tokens
+ * through an <code>IntSupplier</code>: the lexer isn't generated. A token running
+ * {@link ParseEngine#CHECKED_AFTER} reductions has them checked for a loop by a {@link ParseEngine} over the
+ * table.</p>
+ * <p>Compiling needs a JDK. When it fails, or the table is too large, the table interpreter is used
+ * instead, which always gives the same statuses.</p>
+ */
+final class ParserCompiler {
+
+    private static final String PACKAGE = "parser";
+
+    private static final String CLASS_NAME = "GeneratedParser";
+
+    /** Largest table compiled, in states */
+    static final int MAX_STATES = 256;
+
+    private ParserCompiler(){
+
+    }
+
+    /** Compiles the table, which needs a JDK at runtime: without the platform's compiler (a JRE, or a
+     * <code>jlink</code> image without the <code>java.compiler</code> module), or for a table of more than
+     * {@link #MAX_STATES} states, <code>fallback</code> is returned without a message. A message is only
+     * printed when compiling or defining the class fails.
+     * @param tokens splits an input into the table's columns, the last one being <code>$</code>
+     * @param fallback the parser used if the table isn't compiled
+     * @return the compiled parser, or <code>fallback</code>
+     */
+    static Parser compile(ParseTable table, Function<String, IntSupplier> tokens, Parser fallback){
+        if(table.states() > MAX_STATES)
+            return fallback;
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if(compiler == null)
+            return fallback;
+        try {
+            byte[] bytes = compile(compiler, source(table));
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (Parser) lookup.lookupClass().getConstructor(ParseTable.class, Function.class).newInstance(table, tokens);
+        }
+        catch(Exception | LinkageError ex){
+            //not the VirtualMachineErrors, running out of memory while compiling has to be seen
+            System.out.println("Couldn't compile the parser, using the table interpreter: " + ex.getMessage());
+            return fallback;
+        }
+    }
+
+    /** @return the source of the parser of <code>table</code> */
+    static String source(ParseTable table){
+        int states = table.states();
+        int terminals = table.terminalColumns();
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(PACKAGE).append(";\n\n");
+        out.append("/** Generated from a ").append(states).append(" states parse table. */\n");
+        out.append("public final class ").append(CLASS_NAME).append(" implements parser.Parser {\n\n");
+        out.append("    private static final int REJECTED = -1;\n\n");
+        out.append("    private static final int ACCEPTED = -2;\n\n");
+        out.append("    private final parser.ParseTable table;\n\n");
+        out.append("    private final java.util.function.Function<String, java.util.function.IntSupplier> tokens;\n\n");
+        out.append("    private final java.util.function.IntSupplier source;\n\n");
+        out.append("    private int[] stack;\n\n");
+        out.append("    private int top;\n\n");
+        out.append("    private int token;\n\n");
+        out.append("    private int reductions;\n\n");
+        out.append("    public ").append(CLASS_NAME).append("(parser.ParseTable table, java.util.function.Function<String, java.util.function.IntSupplier> tokens){\n");
+        out.append("        this.table = table;\n");
+        out.append("        this.tokens = tokens;\n");
+        out.append("        this.source = null;\n");
+        out.append("    }\n\n");
+        out.append("    private ").append(CLASS_NAME).append("(parser.ParseTable table, java.util.function.IntSupplier source){\n");
+        out.append("        this.table = table;\n");
+        out.append("        this.tokens = null;\n");
+        out.append("        this.source = source;\n");
+        out.append("        this.stack = new int[64];\n");
+        out.append("    }\n\n");
+        out.append("    @Override\n");
+        out.append("    public constants.Status parse(String input){\n");
+        out.append("        if(input == null)\n");
+        out.append("            return constants.Status.REJECTED;\n");
+        out.append("        return new ").append(CLASS_NAME).append("(table, tokens.apply(input)).run() ? constants.Status.ACCEPTED : constants.Status.REJECTED;\n");
+        out.append("    }\n\n");
+        out.append("    private boolean run(){\n");
+        out.append("        token = source.getAsInt();\n");
+        out.append("        int state = token < 0 ? REJECTED : 0;\n");
+        out.append("        while(state >= 0){\n");
+        out.append("            state = switch(state){\n");
+        for(int state = 0; state < states; state++)
+            out.append("                case ").append(state).append(" -> state").append(state).append("();\n");
+        out.append("                default -> REJECTED;\n");
+        out.append("            };\n");
+        out.append("        }\n");
+        out.append("        return state == ACCEPTED;\n");
+        out.append("    }\n\n");
+        out.append("    private int shift(int state){\n");
+        out.append("        push(state);\n");
+        out.append("        reductions = 0;\n");
+        out.append("        token = source.getAsInt();\n");
+        out.append("        return token < 0 ? REJECTED : state;\n");
+        out.append("    }\n\n");
+        out.append("    private int reduced(int state){\n");
+        out.append("        if(++reductions == parser.ParseEngine.CHECKED_AFTER && parser.ParseEngine.endless(table, stack, top, token))\n");
+        out.append("            return REJECTED;\n");
+        out.append("        return push(state);\n");
+        out.append("    }\n\n");
+        out.append("    private int push(int state){\n");
+        out.append("        if(state < 0)\n");
+        out.append("            return REJECTED;\n");
+        out.append("        if(++top == stack.length)\n");
+        out.append("            stack = java.util.Arrays.copyOf(stack, 2 * top);\n");
+        out.append("        stack[top] = state;\n");
+        out.append("        return state;\n");
+        out.append("    }\n");
+        for(int state = 0; state < states; state++){
+            out.append("\n    private int state").append(state).append("(){\n");
+            out.append("        switch(token){\n");
+            int fallthrough = table.defaultReduction(state);
+            LinkedHashMap<Integer, List<Integer>> cases = new LinkedHashMap<>();
+            for(int column = 0; column < terminals; column++){
+                int action = table.get(state, column);
+                if(action != Action.ERROR && action != fallthrough)
+                    cases.computeIfAbsent(action, key -> new ArrayList<>()).add(column);
+            }
+            for(Map.Entry<Integer, List<Integer>> entry: cases.entrySet())
+                out.append("            case ").append(labels(entry.getValue())).append(": ").append(action(table, entry.getKey())).append("\n");
+            out.append("            default: ").append(action(table, fallthrough)).append("\n");
+            out.append("        }\n");
+            out.append("    }\n");
+        }
+        for(int column = terminals; column < table.width(); column++){
+            out.append("\n    private static int jump").append(column).append("(int state){\n");
+            out.append("        switch(state){\n");
+            LinkedHashMap<Integer, List<Integer>> targets = new LinkedHashMap<>();
+            for(int state = 0; state < states; state++){
+                int jump = table.get(state, column);
+                if(Action.kind(jump) == Action.GOTO)
+                    targets.computeIfAbsent(Action.operand(jump), key -> new ArrayList<>()).add(state);
+            }
+            for(Map.Entry<Integer, List<Integer>> entry: targets.entrySet())
+                out.append("            case ").append(labels(entry.getValue())).append(": return ").append(entry.getKey()).append(";\n");
+            out.append("            default: return REJECTED;\n");
+            out.append("        }\n");
+            out.append("    }\n");
+        }
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private static String labels(List<Integer> values){
+        StringBuilder labels = new StringBuilder();
+        for(int value: values)
+            labels.append(labels.length() == 0 ? "" : ", ").append(value);
+        return labels.toString();
+    }
+
+    /** @return the statement returning the next state after <code>action</code>, reductions popping the
+     * stack inline
+     */
+    private static String action(ParseTable table, int action){
+        switch(Action.kind(action)){
+            case Action.SHIFT:
+                return "return shift(" + Action.operand(action) + ");";
+            case Action.REDUCE:
+                int production = Action.operand(action);
+                int length = table.rhsLength(production);
+                String jump = "reduced(jump" + table.lhsColumn(production) + "(stack[top]))";
+                if(length == 0)
+                    return "return " + jump + ";";
+                return "top -= " + length + "; return top < 0 ? REJECTED : " + jump + ";";
+            case Action.ACCEPT:
+                return "return ACCEPTED;";
+            default:
+                return "return REJECTED;";
+        }
+    }
+
+    /** Compiles the generated source in memory.
+     * @return the bytes of the generated class
+     */
+    private static byte[] compile(JavaCompiler compiler, String source) throws Exception {
+        String name = PACKAGE + "." + CLASS_NAME;
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaFileManager files = new ForwardingJavaFileManager<>(compiler.getStandardFileManager(diagnostics, null, null)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                       FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/') + ".class"), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return bytes;
+                    }
+                };
+            }
+        };
+        List<String> options = List.of("-classpath", classPath(), "-proc:none", "-g:none", "-nowarn");
+        try(files) {
+            if(!compiler.getTask(null, files, diagnostics, options, null, List.of(file)).call()){
+                StringBuilder errors = new StringBuilder();
+                for(Diagnostic<? extends JavaFileObject> diagnostic: diagnostics.getDiagnostics())
+                    if(diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                        errors.append(diagnostic.getMessage(null)).append(' ');
+                throw new IllegalStateException(errors.toString().trim());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /** The classes the generated source refers to, {@link Parser} and {@link Status}, are found where this
+     * class was loaded from, then on the class path.
+     */
+    private static String classPath() throws Exception {
+        String own = Path.of(ParserCompiler.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        return own + File.pathSeparator + System.getProperty("java.class.path");
+    }
+}
@@ -0,0 +1,176 @@
+package parser;
+
+import constants.Status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/** Parses a batch of inputs sharing prefixes, parsing every shared prefix once.
+ * <p>The inputs are sorted, so that inputs sharing a prefix are next to each other, each one sharing with
+ * the next one their longest common prefix. Sorted inputs walk the trie of the inputs depth first: while
+ * an input is parsed, the stack is copied at the token boundaries where later inputs branch off, and every
+ * input starts from the deepest copy of the prefix it shares with the previous ones, copies deeper than
+ * that being dropped for good.</p>
+ * <li>the branch depths of the later inputs are known before parsing, they are the decreasing chain of
+ * the common prefix lengths, so the stack is only copied where it will be used;</li>
+ * <li>the lexer reads up to the longest terminal past a token's start, so the stack before a token is only
+ * shared if the text is the same up to there from the start of the previous token;</li>
+ * <li>a rejection is shared like a stack: an input sharing the text up to the rejected token is rejected
+ * without being parsed;</li>
+ * <li>the sorted inputs are split in chunks of <code>CHUNK</code> inputs parsed in parallel, sharing stops
+ * at the chunk boundaries.</li>
+ */
+final class PrefixBatch {
+
+    /** Sorted inputs parsed by one task */
+    static final int CHUNK = 4096;
+
+    private final ParseTable table;
+
+    private final Lexer lexer;
+
+    private final int end;
+
+    PrefixBatch(ParseTable table, Lexer lexer, int end){
+        this.table = table;
+        this.lexer = lexer;
+        this.end = end;
+    }
+
+    /** @return the status of every input, in the same order as <code>inputs</code> */
+    List<Status> parseAll(List<String> inputs){
+        int count = inputs.size();
+        String[] sorted = inputs.toArray(new String[0]);
+        Integer[] order = new Integer[count];
+        for(int i = 0; i < count; i++)
+            order[i] = i;
+        Arrays.sort(order, Comparator.comparing(i -> sorted[i], Comparator.nullsFirst(Comparator.naturalOrder())));
+        int[] shared = new int[count];
+        for(int i = 0; i + 1 < count; i++)
+            shared[i] = commonPrefix(sorted[order[i]], sorted[order[i + 1]]);
+        Status[] statuses = new Status[count];
+        IntStream.range(0, (count + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+            int from = chunk * CHUNK;
+            parse(sorted, order, shared, from, Math.min(count, from + CHUNK), statuses);
+        });
+        return List.of(statuses);
+    }
+
+    /** Parses the sorted inputs <code>[from, to)</code>, the common prefix of the sorted input <code>i</code>
+     * and the next one being <code>shared[i]</code>.
+     */
+    private void parse(String[] inputs, Integer[] order, int[] shared, int from, int to, Status[] statuses){
+        //the next input sharing a shorter prefix, for the branch depths of the later inputs
+        int[] nextShorter = new int[to - from];
+        int[] pending = new int[to - from];
+        int waiting = 0;
+        for(int i = to - 1; i >= from; i--){
+            int prefix = prefix(shared, i, to);
+            while(waiting > 0 && prefix(shared, pending[waiting - 1], to) >= prefix)
+                waiting--;
+            nextShorter[i - from] = waiting == 0 ? -1 : pending[waiting - 1];
+            pending[waiting++] = i;
+        }
+
+        ParseEngine engine = new ParseEngine(table);
+        int longest = lexer.longest();
+        ArrayList<Checkpoint> checkpoints = new ArrayList<>();
+        checkpoints.add(new Checkpoint(0, 0, engine.snapshot(), null));
+        int[] depths = new int[16];
+        int previous = 0;
+        for(int i = from; i < to; i++){
+            String input = inputs[order[i]];
+            //copies of a longer prefix than the one shared with the previous input won't be used again
+            while(checkpoints.size() > 1 && checkpoints.get(checkpoints.size() - 1).required > previous)
+                checkpoints.remove(checkpoints.size() - 1);
+            previous = prefix(shared, i, to);
+            Checkpoint start = checkpoints.get(checkpoints.size() - 1);
+            if(input == null || start.status != null){
+                statuses[order[i]] = input == null ? Status.REJECTED : start.status;
+                continue;
+            }
+            //the branch depths of the later inputs, deeper than the copy this one starts from, increasing
+            int branches = 0;
+            for(int j = i; j != -1 && prefix(shared, j, to) > start.required; j = nextShorter[j - from]){
+                if(branches == depths.length)
+                    depths = Arrays.copyOf(depths, 2 * branches);
+                depths[branches++] = prefix(shared, j, to);
+            }
+            int branch = branches - 1;
+            int deepest = start.required;
+
+            engine.restore(start.stack);
+            StringTokenSource tokens = new StringTokenSource(lexer, input, end, start.position);
+            int position = start.position;
+            int required = start.required;
+            while(true){
+                int column = tokens.next();
+                //the stack before the token after this one needs the text up to what lexing this one reads
+                int nextRequired = tokens.start() + longest + 1;
+                while(branch >= 0 && depths[branch] < required)
+                    branch--;
+                if(branch >= 0 && depths[branch] < nextRequired && required > deepest){
+                    checkpoints.add(new Checkpoint(required, position, engine.snapshot(), null));
+                    deepest = required;
+                    while(branch >= 0 && depths[branch] < nextRequired)
+                        branch--;
+                }
+                int result = engine.feed(column);
+                if(result == ParseEngine.ACCEPTED){
+                    statuses[order[i]] = Status.ACCEPTED;
+                    break;
+                }
+                if(result != ParseEngine.SHIFTED || column == end){
+                    statuses[order[i]] = Status.REJECTED;
+                    if(column != end && branches > 0 && nextRequired <= depths[0] && nextRequired > deepest)
+                        checkpoints.add(new Checkpoint(nextRequired, -1, null, Status.REJECTED));
+                    break;
+                }
+                required = nextRequired;
+                position = tokens.position();
+            }
+        }
+    }
+
+    /** @return the common prefix of the sorted input <code>i</code> and the next one in the chunk ending at
+     * <code>to</code>
+     */
+    private static int prefix(int[] shared, int i, int to){
+        return i + 1 < to ? shared[i] : 0;
+    }
+
+    private static int commonPrefix(String first, String second){
+        if(first == null || second == null)
+            return 0;
+        int length = Math.min(first.length(), second.length());
+        int i = 0;
+        while(i < length && first.charAt(i) == second.charAt(i))
+            i++;
+        return i;
+    }
+
+    /** The stack before a token, shared by the inputs whose first <code>required</code> characters are the
+     * same, or their status if they are all rejected
+     */
+    private static final class Checkpoint {
+
+        final int required;
+
+        /** Where lexing goes on */
+        final int position;
+
+        final int[] stack;
+
+        final Status status;
+
+        Checkpoint(int required, int position, int[] stack, Status status){
+            this.required = required;
+            this.position = position;
+            this.stack = stack;
+            this.status = status;
+        }
+    }
+}
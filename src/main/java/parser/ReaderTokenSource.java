@@ -0,0 +1,112 @@
+package parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/** Splits the characters of a {@link Reader} into tokens with a {@link Lexer}, reading them in
+ * fixed-size chunks.
+ * <p>Only the current chunk is kept in memory. When a token runs past the end of the chunk, its
+ * beginning is moved to the start of the buffer and the rest of the buffer is refilled, so tokens
+ * can span chunk boundaries.</p>
+ */
+final class ReaderTokenSource implements TokenSource {
+
+    static final int CHUNK_SIZE = 8192;
+
+    private final Lexer lexer;
+
+    private final Reader reader;
+
+    private final int end;
+
+    private char[] buffer;
+
+    private int position;
+
+    private int limit;
+
+    private boolean eof;
+
+    ReaderTokenSource(Lexer lexer, Reader reader, int end){
+        this(lexer, reader, end, CHUNK_SIZE);
+    }
+
+    ReaderTokenSource(Lexer lexer, Reader reader, int end, int chunkSize){
+        this.lexer = lexer;
+        this.reader = reader;
+        this.end = end;
+        this.buffer = new char[Math.max(chunkSize, lexer.longest() + 1)];
+    }
+
+    @Override
+    public int next() throws IOException {
+        while(true){
+            if(position == limit){
+                position = limit = 0;
+                if(!fill())
+                    return end;
+            }
+            if(!Character.isWhitespace(buffer[position]))
+                break;
+            position++;
+        }
+        int node = Lexer.ROOT;
+        int column = ERROR;
+        int tokenEnd = position;
+        int i = position;
+        while(true){
+            if(i == limit){
+                int shift = compact();
+                i -= shift;
+                tokenEnd -= shift;
+                if(!fill())
+                    break;
+            }
+            node = lexer.step(node, buffer[i]);
+            if(node == Lexer.DEAD)
+                break;
+            if(lexer.accept(node) != -1){
+                column = lexer.accept(node);
+                tokenEnd = i + 1;
+            }
+            if(lexer.isLeaf(node))
+                break;
+            i++;
+        }
+        position = tokenEnd;
+        return column;
+    }
+
+    /** Moves the unconsumed characters to the start of the buffer.
+     * @return by how much they moved
+     */
+    private int compact(){
+        int shift = position;
+        if(shift > 0){
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= shift;
+            position = 0;
+        }
+        if(limit == buffer.length)
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        return shift;
+    }
+
+    /** Reads more characters after <code>limit</code>.
+     * @return false if the input is over
+     */
+    private boolean fill() throws IOException {
+        if(eof)
+            return false;
+        int read = 0;
+        while(read == 0)
+            read = reader.read(buffer, limit, buffer.length - limit);
+        if(read < 0){
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+package parser;
+
+import java.util.function.IntSupplier;
+
+/** Splits an in-memory input into tokens with a {@link Lexer}, skipping white space between them.
+ * <p>It's also an <code>IntSupplier</code> of the same tokens, for the parsers of {@link ParserCompiler}.</p>
+ */
+final class StringTokenSource implements TokenSource, IntSupplier {
+
+    private final Lexer lexer;
+
+    private final CharSequence input;
+
+    private final int end;
+
+    private int position;
+
+    private int start;
+
+    StringTokenSource(Lexer lexer, CharSequence input, int end){
+        this(lexer, input, end, 0);
+    }
+
+    /** Splits the input from the offset <code>position</code> on. */
+    StringTokenSource(Lexer lexer, CharSequence input, int end, int position){
+        this.lexer = lexer;
+        this.input = input;
+        this.end = end;
+        this.position = position;
+    }
+
+    /** Offset of the first character of the last token returned, the input's length for <code>$</code>. */
+    int start(){
+        return start;
+    }
+
+    /** Offset of the first character after the last token returned. */
+    int position(){
+        return position;
+    }
+
+    @Override
+    public int next(){
+        int length = input.length();
+        while(position < length && Character.isWhitespace(input.charAt(position)))
+            position++;
+        start = position;
+        if(position == length)
+            return end;
+        int node = Lexer.ROOT;
+        int column = ERROR;
+        int tokenEnd = position;
+        for(int i = position; i < length; i++){
+            node = lexer.step(node, input.charAt(i));
+            if(node == Lexer.DEAD)
+                break;
+            if(lexer.accept(node) != -1){
+                column = lexer.accept(node);
+                tokenEnd = i + 1;
+            }
+            if(lexer.isLeaf(node))
+                break;
+        }
+        position = tokenEnd;
+        return column;
+    }
+
+    @Override
+    public int getAsInt(){
+        return next();
+    }
+}
@@ -0,0 +1,247 @@
+package parser;
+
+import constants.TableMode;
+import grammar.Grammar;
+import grammar.Production;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/** Binary parser table files.
+ * <p>The file is little-endian and laid out like this:</p>
+ * <li>header - magic <code>LRPT</code>, format version, CRC32C checksum of everything after the
+ * header, number of symbols, number of terminal columns, number of productions, number of states, and
+ * the key of the grammar and mode the table was built for (see {@link #key(Grammar, TableMode)})</li>
+ * <li>productions - the left side column of every production, then the length of every right side</li>
+ * <li>symbol dictionary - every symbol in column order, as its UTF-8 length then its bytes</li>
+ * <li>rows - aligned to 8 bytes, <code>states * symbols</code> cells packed by {@link Action}</li>
+ * <p>Loading maps the file with {@link FileChannel#map} and reads the cells straight from the mapping,
+ * rows are never copied. Tables packaged as classpath resources, which can't be mapped, are read into
+ * memory once (see {@link #read(InputStream, String)}).</p>
+ * <p>Loading checks the header, the productions and the file's size, not the checksum, which would read every
+ * page of the rows up front: a cell is checked when the parser reads it, a cell no table can hold throwing an
+ * <code>IllegalStateException</code> naming the file (see {@link ParseTable}). Other damage to the rows is
+ * only found by {@link #verify(Path)}, which parsers run on the tables they load if asked to (see
+ * {@link LRParserWrapper#LRParserWrapper(grammar.GrammarWrapper, TableMode, java.nio.file.Path, boolean)}).</p>
+ */
+final class TableFile {
+
+    static final int MAGIC = 0x5450524C; // "LRPT" read as a little-endian int
+
+    static final int VERSION = 2;
+
+    /** Length of a grammar key, a SHA-256 digest */
+    static final int KEY_SIZE = 32;
+
+    private static final int HEADER_SIZE = 64;
+
+    private static final int CHECKSUM_OFFSET = 8;
+
+    private static final int KEY_OFFSET = 32;
+
+    private TableFile(){
+
+    }
+
+    /** @return true if <code>path</code> starts like a binary table file */
+    static boolean isBinary(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while(magic.hasRemaining() && channel.read(magic) > 0);
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /** Key of the table built for <code>grammar</code> in <code>mode</code>: a SHA-256 digest of the
+     * format version, the mode, the symbols in column order, the start symbol and every production.
+     * Formatting of the grammar file doesn't change it, renaming or reordering symbols or productions does.
+     */
+    static byte[] key(Grammar grammar, TableMode mode){
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); //every Java platform has SHA-256
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        digestInt(digest, buffer, VERSION);
+        digestString(digest, buffer, mode.name());
+        digestInt(digest, buffer, grammar.terminalCount());
+        digestInt(digest, buffer, grammar.symbolCount());
+        for(int symbol = 0; symbol < grammar.symbolCount(); symbol++)
+            digestString(digest, buffer, grammar.symbol(symbol));
+        digestString(digest, buffer, grammar.start);
+        digestInt(digest, buffer, grammar.productions.size());
+        for(Production production: grammar.productions){
+            digestInt(digest, buffer, production.getState());
+            digestInt(digest, buffer, production.lhs());
+            digestInt(digest, buffer, production.length());
+            for(int i = 0; i < production.length(); i++)
+                digestInt(digest, buffer, production.symbol(i));
+        }
+        return digest.digest();
+    }
+
+    private static void digestInt(MessageDigest digest, ByteBuffer buffer, int value){
+        digest.update(buffer.clear().putInt(value).flip());
+    }
+
+    private static void digestString(MessageDigest digest, ByteBuffer buffer, String value){
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digestInt(digest, buffer, bytes.length);
+        digest.update(bytes);
+    }
+
+    /** @return the key as lowercase hexadecimal */
+    static String hex(byte[] key){
+        StringBuilder builder = new StringBuilder(2 * key.length);
+        for(byte b: key)
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return builder.toString();
+    }
+
+    /** @param key the key of the grammar the table was built for, written as zeros if null */
+    static void write(ParseTable table, Path path, byte[] key) throws IOException {
+        int width = table.width();
+        int states = table.states();
+        int productions = table.productions();
+        byte[][] names = new byte[width][];
+        int dictionary = 0;
+        for(int column = 0; column < width; column++){
+            names[column] = table.symbol(column).getBytes(StandardCharsets.UTF_8);
+            dictionary += 4 + names[column].length;
+        }
+        int rowsOffset = align(HEADER_SIZE + 8 * productions + dictionary);
+        ByteBuffer buffer = ByteBuffer.allocate(rowsOffset + 4 * width * states).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(0)
+                .putInt(width).putInt(table.terminalColumns()).putInt(productions).putInt(states)
+                .put(key == null ? new byte[KEY_SIZE] : key);
+        for(int production = 0; production < productions; production++)
+            buffer.putInt(table.lhsColumn(production));
+        for(int production = 0; production < productions; production++)
+            buffer.putInt(table.rhsLength(production));
+        for(byte[] name: names)
+            buffer.putInt(name.length).put(name);
+        buffer.position(rowsOffset);
+        for(int state = 0; state < states; state++)
+            for(int column = 0; column < width; column++)
+                buffer.putInt(table.get(state, column));
+        buffer.putLong(CHECKSUM_OFFSET, checksum(buffer.duplicate()));
+        buffer.flip();
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            while(buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    /** Checks the checksum of a binary table file, reading all of it.
+     * @throws IOException if the file can't be read, isn't a binary table file, or fails its checksum
+     */
+    static void verify(Path path) throws IOException {
+        ByteBuffer buffer;
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            if(channel.size() < HEADER_SIZE)
+                throw new IOException(path + " is not a parser table file");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if(buffer.getInt(0) != MAGIC)
+            throw new IOException(path + " is not a parser table file");
+        if(buffer.getLong(CHECKSUM_OFFSET) != checksum(buffer.duplicate()))
+            throw new IOException(path + " is corrupted, checksum mismatch");
+    }
+
+    /** Maps a binary table file.
+     * @param key the key the table has to have been built for, any if null
+     * @throws IOException if the file can't be read, isn't a binary table file of this version,
+     * was built for another key, or has a damaged header or size. The rows aren't read, see {@link #verify(Path)}.
+     */
+    static ParseTable map(Path path, byte[] key) throws IOException {
+        ByteBuffer buffer;
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            if(channel.size() < HEADER_SIZE)
+                throw new IOException(path + " is not a parser table file");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return table(buffer, path.toString(), key);
+    }
+
+    /** Reads a binary table file from a stream, eg. a classpath resource, whatever the key it was built for.
+     * @param name the name of the file, for the error messages
+     * @throws IOException if the stream can't be read, isn't a binary table file of this version, or
+     * has a damaged header or size
+     */
+    static ParseTable read(InputStream input, String name) throws IOException {
+        return table(ByteBuffer.wrap(input.readAllBytes()), name, null);
+    }
+
+    /** Reads the table held by <code>buffer</code>, the rows staying in the buffer. */
+    private static ParseTable table(ByteBuffer buffer, String path, byte[] key) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+            throw new IOException(path + " is not a parser table file");
+        if(buffer.getInt(4) != VERSION)
+            throw new IOException(path + " has table format version " + buffer.getInt(4) + ", expected " + VERSION);
+        if(key != null){
+            byte[] stored = new byte[KEY_SIZE];
+            buffer.get(KEY_OFFSET, stored);
+            if(!Arrays.equals(stored, key))
+                throw new IOException(path + " was built for another grammar or table mode");
+        }
+
+        int width = buffer.getInt(16);
+        int terminalColumns = buffer.getInt(20);
+        int productions = buffer.getInt(24);
+        int states = buffer.getInt(28);
+        //the counts size the arrays below, a damaged header has to fail here rather than while reading them
+        if(width < 0 || terminalColumns < 0 || terminalColumns > width || productions < 0 || states < 0
+                || HEADER_SIZE + 8L * productions + 4L * width > buffer.capacity())
+            throw new IOException(path + " is corrupted, bad header");
+        buffer.position(HEADER_SIZE);
+        int[] lhsColumns = new int[productions];
+        int[] rhsLengths = new int[productions];
+        for(int production = 0; production < productions; production++)
+            lhsColumns[production] = buffer.getInt();
+        for(int production = 0; production < productions; production++)
+            rhsLengths[production] = buffer.getInt();
+        for(int production = 0; production < productions; production++)
+            if(lhsColumns[production] < 0 || lhsColumns[production] >= width || rhsLengths[production] < 0)
+                throw new IOException(path + " is corrupted, bad production " + production);
+        String[] symbols = new String[width];
+        for(int column = 0; column < width; column++){
+            int length = buffer.remaining() < 4 ? -1 : buffer.getInt();
+            if(length < 0 || length > buffer.remaining())
+                throw new IOException(path + " is corrupted, bad symbol dictionary");
+            byte[] name = new byte[length];
+            buffer.get(name);
+            symbols[column] = new String(name, StandardCharsets.UTF_8);
+        }
+        buffer.position(align(buffer.position()));
+        if(buffer.remaining() != 4L * width * states)
+            throw new IOException(path + (buffer.remaining() < 4L * width * states ? " is truncated" : " is corrupted, bad size"));
+        return new ParseTable(symbols, terminalColumns, buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer(),
+                states, lhsColumns, rhsLengths, path);
+    }
+
+    private static long checksum(ByteBuffer buffer){
+        CRC32C crc = new CRC32C();
+        buffer.position(HEADER_SIZE);
+        buffer.limit(buffer.capacity());
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    private static int align(int offset){
+        return (offset + 7) & ~7;
+    }
+}
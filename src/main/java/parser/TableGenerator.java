@@ -0,0 +1,78 @@
+package parser;
+
+import constants.TableMode;
+import grammar.GrammarWrapper;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Builds parser tables ahead of time, to package them with an application instead of building them when
+ * it starts. The tables are loaded with {@link LRParserWrapper#fromClasspath(String)}, which neither reads
+ * the grammar nor builds item sets.
+ * <p>Usage: <code>TableGenerator output-directory grammar.in... [mode=LALR]</code>, every
+ * <code>name.in</code> grammar giving an <code>output-directory/name.lrt</code> binary table file (see
+ * {@link LRParserWrapper#storeParserTable(constants.TableFormat)}).</p>
+ * <p>It's meant to run while building, in the <code>process-resources</code> phase, with the output directory
+ * inside <code>target/classes</code>, eg. with the <code>exec-maven-plugin</code>:</p>
+ * <pre>
+ * &lt;execution&gt;
+ *     &lt;phase&gt;process-resources&lt;/phase&gt;
+ *     &lt;goals&gt;&lt;goal&gt;java&lt;/goal&gt;&lt;/goals&gt;
+ *     &lt;configuration&gt;
+ *         &lt;mainClass&gt;parser.TableGenerator&lt;/mainClass&gt;
+ *         &lt;arguments&gt;
+ *             &lt;argument&gt;${project.build.outputDirectory}/tables&lt;/argument&gt;
+ *             &lt;argument&gt;${project.basedir}/src/main/grammars/grammar.in&lt;/argument&gt;
+ *         &lt;/arguments&gt;
+ *     &lt;/configuration&gt;
+ * &lt;/execution&gt;
+ * </pre>
+ * <p>The grammars are only needed while building, the jar holding <code>tables/grammar.lrt</code>.</p>
+ */
+public final class TableGenerator {
+
+    private TableGenerator(){
+
+    }
+
+    /** Builds the table of the grammar file <code>grammar</code> in <code>mode</code> and writes it to
+     * <code>directory</code>, created if needed, named after the grammar file.
+     * @return the path of the table file
+     */
+    public static Path generate(String grammar, TableMode mode, Path directory) throws IOException {
+        if(!Files.isRegularFile(Path.of(grammar)))
+            throw new FileNotFoundException("No grammar file " + grammar);
+        String name = Path.of(grammar).getFileName().toString();
+        int extension = name.lastIndexOf('.');
+        Path table = directory.resolve((extension > 0 ? name.substring(0, extension) : name) + ".lrt");
+        Files.createDirectories(directory);
+        new LRParser(new GrammarWrapper(grammar).getGrammar(), mode).writeBinaryTable(table);
+        return table;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2){
+            System.out.println("Usage: TableGenerator output-directory grammar.in... [mode=LALR]");
+            return;
+        }
+        TableMode mode = TableMode.LALR;
+        List<String> grammars = new ArrayList<>();
+        for(int i = 1; i < args.length; i++){
+            String[] option = args[i].split("=", 2);
+            if(option.length != 2){
+                grammars.add(args[i]);
+                continue;
+            }
+            if(!option[0].equals("mode"))
+                throw new IllegalArgumentException("Unknown parameter " + option[0]);
+            mode = TableMode.valueOf(option[1].toUpperCase());
+        }
+        Path directory = Path.of(args[0]);
+        for(String grammar: grammars)
+            System.out.println("Wrote " + generate(grammar, mode, directory));
+    }
+}
@@ -0,0 +1,15 @@
+package parser;
+
+import java.io.IOException;
+
+/** Supplies the tokens of an input to the parser, as parse table columns. */
+interface TokenSource {
+
+    /** Returned by {@link #next()} when the input doesn't continue with a terminal. */
+    int ERROR = -1;
+
+    /** @return the column of the next token, the <code>$</code> column once the input is over,
+     * or {@link #ERROR}
+     */
+    int next() throws IOException;
+}
@@ -0,0 +1,310 @@
+package server;
+
+import constants.Status;
+import constants.TableMode;
+import grammar.GrammarWrapper;
+import parser.LRParserWrapper;
+import parser.Parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/** Serves one parser over a local socket, so the parser is built once and used by any number of jobs.
+ * <p>The protocol is line based: a client sends its inputs separated by <code>'\n'</code> (a trailing
+ * <code>'\r'</code> is dropped) and gets back one line per input, <code>ACCEPTED</code> or
+ * <code>REJECTED</code>, in the order of the inputs. Clients don't have to wait for a status before
+ * sending the next input: the lines already received on a connection are parsed as one batch and their
+ * statuses written back with a single write.</p>
+ * <li>every connection is served on its own virtual thread when the JVM has them (Java 21 and later),
+ * on a cached pool of platform threads otherwise;</li>
+ * <li>batches of at least <code>PARALLEL_BATCH</code> inputs are parsed with {@link Parser#parseAll(List)},
+ * smaller ones on the connection's thread;</li>
+ * <li>a line longer than the maximum line length is answered <code>REJECTED</code> without being parsed, and
+ * dropped up to its <code>'\n'</code> as it is received, so a client can't make the server buffer it whole;</li>
+ * <li>the address is either an <code>InetSocketAddress</code> (use the loopback one, there is no
+ * authentication) or a <code>UnixDomainSocketAddress</code>, whose file is deleted on {@link #close()}.</li>
+ */
+public class ParseServer implements Closeable {
+
+    /** Batches at least this large are parsed in parallel */
+    public static final int PARALLEL_BATCH = 256;
+
+    /** Longest line parsed by default, in bytes */
+    public static final int MAX_LINE = 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] ACCEPTED = "ACCEPTED\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] REJECTED = "REJECTED\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Parser parser;
+
+    private final int maxBatch;
+
+    private final int maxLine;
+
+    private final ServerSocketChannel server;
+
+    private final SocketAddress address;
+
+    private final ExecutorService connections;
+
+    private final Thread acceptor;
+
+    /** Starts serving <code>parser</code> on <code>address</code>, in batches of at most 1024 inputs. */
+    public ParseServer(Parser parser, SocketAddress address) throws IOException {
+        this(parser, address, 1024);
+    }
+
+    /** Starts serving <code>parser</code> on <code>address</code>, rejecting the lines longer than
+     * <code>MAX_LINE</code> bytes.
+     */
+    public ParseServer(Parser parser, SocketAddress address, int maxBatch) throws IOException {
+        this(parser, address, maxBatch, MAX_LINE);
+    }
+
+    /** Starts serving <code>parser</code> on <code>address</code>. A port of 0 picks a free one,
+     * see {@link #getAddress()}.
+     * @param maxBatch the most inputs of one connection parsed at once
+     * @param maxLine the longest line parsed, in bytes without its <code>'\n'</code>, longer ones being rejected.
+     * With <code>maxBatch</code>, it bounds the memory of a connection.
+     */
+    public ParseServer(Parser parser, SocketAddress address, int maxBatch, int maxLine) throws IOException {
+        if(maxBatch < 1)
+            throw new IllegalArgumentException("The batch size has to be positive, got " + maxBatch);
+        if(maxLine < 1)
+            throw new IllegalArgumentException("The line length has to be positive, got " + maxLine);
+        this.parser = parser;
+        this.maxBatch = maxBatch;
+        this.maxLine = maxLine;
+        server = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        server.bind(address);
+        this.address = server.getLocalAddress();
+        connections = connectionExecutor();
+        acceptor = new Thread(this::accept, "parse-server-acceptor");
+        acceptor.start();
+    }
+
+    /** @return the address the server listens on */
+    public SocketAddress getAddress(){
+        return address;
+    }
+
+    /** Stops accepting connections and closes the open ones. */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        connections.shutdownNow();
+        try {
+            acceptor.join();
+            connections.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if(address instanceof UnixDomainSocketAddress unix)
+            Files.deleteIfExists(unix.getPath());
+    }
+
+    private void accept(){
+        while(server.isOpen()){
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.out.println("Couldn't accept a connection: " + e.getMessage());
+                continue;
+            }
+            try {
+                connections.execute(() -> serve(channel));
+            } catch (RuntimeException e) {
+                //rejected, the server is closing
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel){
+        try(channel) {
+            ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+            ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+            List<String> batch = new ArrayList<>();
+            //whether the bytes up to the next '\n' are the rest of a line too long, already rejected
+            boolean skipping = false;
+            while(channel.read(input) != -1){
+                input.flip();
+                byte[] bytes = input.array();
+                int start = input.position();
+                for(int i = start; i < input.limit(); i++){
+                    if(bytes[i] != '\n')
+                        continue;
+                    if(skipping)
+                        skipping = false;
+                    else if(i - start > maxLine)
+                        output = reject(channel, batch, output);
+                    else
+                        batch.add(line(bytes, start, i));
+                    start = i + 1;
+                    if(batch.size() == maxBatch)
+                        output = respond(channel, batch, output);
+                }
+                if(skipping || input.limit() - start > maxLine){
+                    if(!skipping)
+                        output = reject(channel, batch, output);
+                    skipping = true;
+                    input.clear();
+                }
+                else {
+                    input.position(start);
+                    input.compact();
+                    if(!input.hasRemaining()){
+                        //a line longer than the buffer, the buffer growing up to the longest line
+                        ByteBuffer larger = ByteBuffer.allocate((int) Math.min(input.capacity() * 2L, maxLine + 1L));
+                        input.flip();
+                        larger.put(input);
+                        input = larger;
+                    }
+                }
+                output = respond(channel, batch, output);
+            }
+            if(input.position() > 0 && !skipping)
+                batch.add(line(input.array(), 0, input.position()));
+            respond(channel, batch, output);
+        } catch (AsynchronousCloseException e) {
+            //closed by close()
+        } catch (IOException e) {
+            System.out.println("Connection closed: " + e.getMessage());
+        }
+    }
+
+    /** Parses the batch and writes the statuses back, emptying the batch.
+     * @return the output buffer, larger if it was too small for the batch
+     */
+    private ByteBuffer respond(SocketChannel channel, List<String> batch, ByteBuffer output) throws IOException {
+        if(batch.isEmpty())
+            return output;
+        List<Status> statuses;
+        if(batch.size() >= PARALLEL_BATCH)
+            statuses = parser.parseAll(batch);
+        else {
+            statuses = new ArrayList<>(batch.size());
+            for(String input: batch)
+                statuses.add(parser.parse(input));
+        }
+        batch.clear();
+        if(output.capacity() < statuses.size() * ACCEPTED.length)
+            output = ByteBuffer.allocate(statuses.size() * ACCEPTED.length);
+        output.clear();
+        for(Status status: statuses)
+            output.put(status == Status.ACCEPTED ? ACCEPTED : REJECTED);
+        output.flip();
+        while(output.hasRemaining())
+            channel.write(output);
+        return output;
+    }
+
+    /** Answers the lines of the batch, then rejects a line too long to be parsed.
+     * @return the output buffer, see {@link #respond}
+     */
+    private ByteBuffer reject(SocketChannel channel, List<String> batch, ByteBuffer output) throws IOException {
+        output = respond(channel, batch, output);
+        output.clear();
+        output.put(REJECTED);
+        output.flip();
+        while(output.hasRemaining())
+            channel.write(output);
+        return output;
+    }
+
+    private static String line(byte[] bytes, int start, int end){
+        if(end > start && bytes[end - 1] == '\r')
+            end--;
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private static void closeQuietly(SocketChannel channel){
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /** A virtual thread per connection if the JVM has them, looked up reflectively since the project
+     * targets Java 17.
+     */
+    private static ExecutorService connectionExecutor(){
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "parse-server-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /** Builds the parser once and serves it until the JVM is stopped.
+     * <p>Usage: <code>ParseServer grammar.in [port=7070 | socket=path] [mode=LALR] [batch=1024]
+     * [line=1048576]</code>, the port being bound on the loopback address and <code>line</code> being the longest
+     * line parsed, in bytes.</p>
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if(args.length == 0){
+            System.out.println("Usage: ParseServer grammar.in [port=7070 | socket=path] [mode=LALR] [batch=1024] [line=1048576]");
+            return;
+        }
+        SocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 7070);
+        TableMode mode = TableMode.LALR;
+        int batch = 1024;
+        int line = MAX_LINE;
+        for(int i = 1; i < args.length; i++){
+            String[] option = args[i].split("=", 2);
+            if(option.length != 2)
+                throw new IllegalArgumentException("Expected parameter=value, got " + args[i]);
+            switch(option[0]){
+                case "port" -> address = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(option[1]));
+                case "socket" -> address = UnixDomainSocketAddress.of(Path.of(option[1]));
+                case "mode" -> mode = TableMode.valueOf(option[1].toUpperCase());
+                case "batch" -> batch = Integer.parseInt(option[1]);
+                case "line" -> line = Integer.parseInt(option[1]);
+                default -> throw new IllegalArgumentException("Unknown parameter " + option[0]);
+            }
+        }
+        LRParserWrapper parser = new LRParserWrapper(new GrammarWrapper(args[0]), mode);
+        ParseServer server = new ParseServer(parser, address, batch, line);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.out.println("Couldn't close the server: " + e.getMessage());
+            }
+        }));
+        System.out.println("Listening on " + server.getAddress());
+        server.acceptor.join();
+    }
+}
@@ -0,0 +1,77 @@
+package util;
+
+import java.util.BitSet;
+
+/** DeRemer and Pennello's <i>Digraph</i> algorithm.
+ * <p>Given a relation <code>R</code> between nodes and an initial set <code>F'(x)</code> for every node,
+ * computes the smallest sets with <code>F(x) = F'(x) ∪ { F(y) | x R y }</code>. Nodes are visited once,
+ * depth first, and the nodes of a strongly connected component all end up with the same set, so the
+ * cost is linear in the size of the relation (times the cost of a set union).</p>
+ * <p>The traversal keeps its own stack, deep relations don't overflow the call stack.</p>
+ */
+public final class Digraph {
+
+    private Digraph(){
+
+    }
+
+    /** @param relation <code>relation[x]</code> holds every <code>y</code> with <code>x R y</code>
+     * @param sets <code>F'(x)</code> on entry, <code>F(x)</code> on return
+     */
+    public static void propagate(int[][] relation, BitSet[] sets){
+        int n = sets.length;
+        int[] depth = new int[n];
+        int[] stack = new int[n];
+        int top = 0;
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        int[] callDepth = new int[n];
+        for(int root = 0; root < n; root++){
+            if(depth[root] != 0)
+                continue;
+            int call = 0;
+            stack[top++] = root;
+            depth[root] = top;
+            callNode[0] = root;
+            callEdge[0] = 0;
+            callDepth[0] = top;
+            while(call >= 0){
+                int x = callNode[call];
+                int[] out = relation[x];
+                if(out != null && callEdge[call] < out.length){
+                    int y = out[callEdge[call]++];
+                    if(depth[y] == 0){
+                        stack[top++] = y;
+                        depth[y] = top;
+                        call++;
+                        callNode[call] = y;
+                        callEdge[call] = 0;
+                        callDepth[call] = top;
+                    }
+                    else{
+                        depth[x] = Math.min(depth[x], depth[y]);
+                        sets[x].or(sets[y]);
+                    }
+                    continue;
+                }
+                if(depth[x] == callDepth[call]){
+                    //x is the root of a strongly connected component, its members share its set
+                    int member;
+                    do{
+                        member = stack[--top];
+                        depth[member] = Integer.MAX_VALUE;
+                        if(member != x)
+                            sets[member].or(sets[x]);
+                    }
+                    while(member != x);
+                }
+                call--;
+                if(call >= 0){
+                    int parent = callNode[call];
+                    depth[parent] = Math.min(depth[parent], depth[x]);
+                    sets[parent].or(sets[x]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package grammar;
+
+import constants.TableMode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import parser.LRParserWrapper;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+public class GrammarTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void buildingParsersLeavesTheGrammarAsItWas() throws Exception {
+        GrammarWrapper wrapper = expressions();
+        Grammar grammar = wrapper.getGrammar();
+        String before = grammar.nonterminals + " " + grammar.terminals + " " + grammar.productions + " " + grammar.symbolCount();
+        for(TableMode mode: TableMode.values())
+            new LRParserWrapper(wrapper, mode);
+        assertEquals(before, grammar.nonterminals + " " + grammar.terminals + " " + grammar.productions + " " + grammar.symbolCount());
+    }
+
+    @Test
+    public void grammarCollectionsAreReadOnly() throws Exception {
+        Grammar grammar = expressions().getGrammar();
+        assertThrows(UnsupportedOperationException.class, () -> grammar.nonterminals.add("S'"));
+        assertThrows(UnsupportedOperationException.class, () -> grammar.terminals.remove("id"));
+        assertThrows(UnsupportedOperationException.class, () -> grammar.productions.clear());
+        assertThrows(UnsupportedOperationException.class, () -> grammar.firstSet.get("E").add("x"));
+        assertThrows(UnsupportedOperationException.class, () -> grammar.followSet.put("E", List.of()));
+    }
+
+    @Test
+    public void setMapsHaveTheirSymbolsAsKeys() throws Exception {
+        Grammar grammar = expressions().getGrammar();
+        HashMap<String, List<String>> first = new HashMap<>(grammar.firstSet);
+        HashMap<String, List<String>> follow = new HashMap<>(grammar.followSet);
+        assertEquals(grammar.terminals.size() + grammar.nonterminals.size(), first.size());
+        assertEquals(grammar.nonterminals, follow.keySet());
+        for(Object key: List.of("E", "T", "F", "id", "+", "(", Grammar.END, "S'", "", "x", 1)){
+            assertEquals(key.toString(), first.containsKey(key), grammar.firstSet.containsKey(key));
+            assertEquals(key.toString(), first.get(key), grammar.firstSet.get(key));
+            assertEquals(key.toString(), follow.containsKey(key), grammar.followSet.containsKey(key));
+            assertEquals(key.toString(), follow.get(key), grammar.followSet.get(key));
+        }
+        assertEquals(List.of("id"), grammar.firstSet.get("id"));
+        assertNull(grammar.followSet.get("id"));
+    }
+
+    private GrammarWrapper expressions() throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), List.of(
+                "E T F",
+                "id + - * ( )",
+                "E : E+T | T | E-T",
+                "T : T*F | F",
+                "F : (E) | id | -(E)",
+                "E"));
+        return new GrammarWrapper(file.getPath());
+    }
+}
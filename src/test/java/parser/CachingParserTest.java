@@ -0,0 +1,50 @@
+package parser;
+
+import constants.Status;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CachingParserTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void nullIsRejectedWithoutCaching() throws Exception {
+        CachingParser parser = new CachingParser(expressions(), 100);
+        assertEquals(Status.REJECTED, parser.parse((String) null));
+        assertEquals(Status.REJECTED, parser.parse((String) null));
+        assertEquals(0, parser.size());
+        assertEquals(0, parser.getHits() + parser.getMisses());
+        assertEquals(Status.ACCEPTED, parser.parse("id + id"));
+        assertEquals(1, parser.size());
+    }
+
+    @Test
+    public void cachedStatusesAreTheParsersOnes() throws Exception {
+        LRParserWrapper parser = expressions();
+        CachingParser cached = new CachingParser(parser, 50, 4_000);
+        List<String> inputs = ParseAllTest.inputs(2_000);
+        for(int round = 0; round < 2; round++)
+            for(String input: inputs)
+                assertEquals(input, parser.parse(input), cached.parse(input));
+        assertEquals(4_000, cached.getHits() + cached.getMisses());
+        assertTrue(cached.size() <= 50 && cached.getBytes() <= 4_000);
+    }
+
+    private LRParserWrapper expressions() throws Exception {
+        return new LRParserWrapper(TestGrammars.write(folder,
+                "E T F",
+                "id + - * ( )",
+                "E : E+T | T | E-T",
+                "T : T*F | F",
+                "F : (E) | id | -(E)",
+                "E"));
+    }
+}
@@ -0,0 +1,135 @@
+package parser;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedTableTest {
+
+    private static final int TERMINALS = 70;
+
+    private static final int NONTERMINALS = 30;
+
+    private static final int STATES = 300;
+
+    @Test
+    public void compressedTableKeepsEveryCell(){
+        Random random = new Random(11);
+        for(int round = 0; round < 20; round++){
+            int[][] dense = randomCells(random);
+            ParseTable table = table(dense);
+            table.compress();
+            for(int state = 0; state < STATES; state++)
+                for(int column = 0; column < TERMINALS + NONTERMINALS; column++)
+                    assertEquals("state " + state + ", column " + column, dense[state][column], table.get(state, column));
+        }
+    }
+
+    @Test
+    public void errorsBecomeTheDefaultReduction(){
+        Random random = new Random(12);
+        for(int round = 0; round < 20; round++){
+            int[][] dense = randomCells(random);
+            ParseTable table = table(dense);
+            table.compress();
+            for(int state = 0; state < STATES; state++){
+                int fallback = table.action(state, firstError(dense[state]));
+                for(int column = 0; column < TERMINALS; column++){
+                    if(dense[state][column] != Action.ERROR)
+                        assertEquals(dense[state][column], table.action(state, column));
+                    else
+                        assertEquals(fallback, table.action(state, column));
+                }
+                if(fallback != Action.ERROR){
+                    assertEquals(Action.REDUCE, Action.kind(fallback));
+                    assertTrue(uses(dense[state], fallback) > 0);
+                    for(int column = 0; column < TERMINALS; column++)
+                        if(Action.kind(dense[state][column]) == Action.REDUCE)
+                            assertTrue(uses(dense[state], dense[state][column]) <= uses(dense[state], fallback));
+                }
+                else
+                    for(int column = 0; column < TERMINALS; column++)
+                        assertTrue(Action.kind(dense[state][column]) != Action.REDUCE);
+                for(int column = TERMINALS; column < TERMINALS + NONTERMINALS; column++)
+                    if(dense[state][column] != Action.ERROR)
+                        assertEquals(dense[state][column], table.jump(state, column));
+            }
+        }
+    }
+
+    @Test
+    public void denseAndCompressedTablesHaveTheSameDefaultReductions(){
+        Random random = new Random(13);
+        for(int round = 0; round < 10; round++){
+            ParseTable table = table(randomCells(random));
+            int[] dense = new int[STATES];
+            for(int state = 0; state < STATES; state++)
+                dense[state] = table.defaultReduction(state);
+            table.compress();
+            for(int state = 0; state < STATES; state++){
+                assertEquals("state " + state, dense[state], table.defaultReduction(state));
+                if(dense[state] != Action.ERROR)
+                    assertEquals(dense[state], table.action(state, firstError(row(table, state))));
+            }
+        }
+    }
+
+    private static int[] row(ParseTable table, int state){
+        int[] row = new int[TERMINALS];
+        for(int column = 0; column < TERMINALS; column++)
+            row[column] = table.get(state, column);
+        return row;
+    }
+
+    /** @return dense rows with a few shifts, reductions and jumps per state, many rows being repeated */
+    private static int[][] randomCells(Random random){
+        int[][] dense = new int[STATES][TERMINALS + NONTERMINALS];
+        for(int state = 0; state < STATES; state++){
+            if(state > 0 && random.nextInt(4) == 0){
+                dense[state] = dense[random.nextInt(state)].clone();
+                continue;
+            }
+            for(int column = 0; column < TERMINALS; column++){
+                int kind = random.nextInt(10);
+                if(kind == 0)
+                    dense[state][column] = Action.shift(random.nextInt(STATES));
+                else if(kind <= 2)
+                    dense[state][column] = Action.reduce(random.nextInt(3) + (state % 7));
+            }
+            for(int column = TERMINALS; column < TERMINALS + NONTERMINALS; column++)
+                if(random.nextInt(5) == 0)
+                    dense[state][column] = Action.jump(random.nextInt(4) == 0 ? random.nextInt(STATES) : column);
+        }
+        dense[1][TERMINALS - 1] = Action.ACCEPT_ACTION;
+        return dense;
+    }
+
+    private static ParseTable table(int[][] dense){
+        String[] symbols = new String[TERMINALS + NONTERMINALS];
+        for(int column = 0; column < symbols.length; column++)
+            symbols[column] = (column < TERMINALS ? "t" : "N") + column;
+        ParseTable table = new ParseTable(symbols, TERMINALS);
+        for(int state = 0; state < STATES; state++)
+            for(int column = 0; column < symbols.length; column++)
+                table.set(state, column, dense[state][column]);
+        return table;
+    }
+
+    private static int firstError(int[] row){
+        for(int column = 0; column < TERMINALS; column++)
+            if(row[column] == Action.ERROR)
+                return column;
+        throw new AssertionError("no error cell");
+    }
+
+    private static int uses(int[] row, int action){
+        int uses = 0;
+        for(int column = 0; column < TERMINALS; column++)
+            if(row[column] == action)
+                uses++;
+        return uses;
+    }
+}
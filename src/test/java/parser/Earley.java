@@ -0,0 +1,87 @@
+package parser;
+
+import grammar.Grammar;
+import grammar.Production;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/** Earley recognizer, which accepts exactly the language of any grammar, ambiguous or cyclic ones included: the
+ * reference the statuses of the parsers are checked against.
+ */
+final class Earley {
+
+    private final Grammar grammar;
+
+    Earley(Grammar grammar){
+        this.grammar = grammar;
+    }
+
+    /** @param tokens the terminals of the input, by name */
+    boolean accepts(List<String> tokens){
+        List<Production> productions = grammar.productions;
+        int start = grammar.symbolId(grammar.start);
+        //an item is its production, the position of its dot and the token it started at
+        List<LinkedHashSet<Long>> sets = new ArrayList<>();
+        for(int i = 0; i <= tokens.size(); i++)
+            sets.add(new LinkedHashSet<>());
+        for(int p = 0; p < productions.size(); p++)
+            if(productions.get(p).lhs() == start)
+                sets.get(0).add(item(p, 0, 0));
+        for(int i = 0; i <= tokens.size(); i++){
+            LinkedHashSet<Long> set = sets.get(i);
+            boolean changed = true;
+            while(changed){
+                changed = false;
+                for(long item: new ArrayList<>(set)){
+                    Production production = productions.get(production(item));
+                    int dot = dot(item);
+                    if(dot < production.length()){
+                        int symbol = production.symbol(dot);
+                        if(!grammar.isTerminal(symbol))
+                            for(int p = 0; p < productions.size(); p++)
+                                if(productions.get(p).lhs() == symbol)
+                                    changed |= set.add(item(p, 0, i));
+                    }
+                    else
+                        for(long waiting: new ArrayList<>(sets.get(origin(item)))){
+                            Production before = productions.get(production(waiting));
+                            if(dot(waiting) < before.length() && before.symbol(dot(waiting)) == production.lhs())
+                                changed |= set.add(item(production(waiting), dot(waiting) + 1, origin(waiting)));
+                        }
+                }
+            }
+            if(i == tokens.size())
+                break;
+            int token = grammar.symbolId(tokens.get(i));
+            for(long item: set){
+                Production production = productions.get(production(item));
+                if(dot(item) < production.length() && production.symbol(dot(item)) == token)
+                    sets.get(i + 1).add(item(production(item), dot(item) + 1, origin(item)));
+            }
+        }
+        for(long item: sets.get(tokens.size())){
+            Production production = productions.get(production(item));
+            if(production.lhs() == start && dot(item) == production.length() && origin(item) == 0)
+                return true;
+        }
+        return false;
+    }
+
+    private static long item(int production, int dot, int origin){
+        return (long) production << 40 | (long) dot << 32 | origin;
+    }
+
+    private static int production(long item){
+        return (int) (item >>> 40);
+    }
+
+    private static int dot(long item){
+        return (int) (item >>> 32) & 0xFF;
+    }
+
+    private static int origin(long item){
+        return (int) item;
+    }
+}
@@ -0,0 +1,60 @@
+package parser;
+
+import constants.Status;
+import constants.TableMode;
+import grammar.GrammarWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+public class EndlessReductionsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 10000)
+    public void cyclicGrammarRejectsInsteadOfLooping() throws Exception {
+        GrammarWrapper grammar = TestGrammars.write(folder,
+                "S A",
+                "a c",
+                "S :  | AA",
+                "A : S | cAa",
+                "S");
+        for(TableMode mode: TableMode.values())
+            assertEquals(mode.toString(), Status.REJECTED, new LRParserWrapper(grammar, mode).parse("a"));
+    }
+
+    @Test(timeout = 10000)
+    public void emptyReductionJumpingBackToItsStateRejects() throws Exception {
+        //S -> NEc -> NMac -> NSac: N is reduced in the state jumped to on N, and SLR allows it on $
+        GrammarWrapper grammar = TestGrammars.write(folder,
+                "S N E M",
+                "a b c",
+                "S : NEc | b | bN",
+                "N : ",
+                "E : Ma",
+                "M : S",
+                "S");
+        for(TableMode mode: TableMode.values()){
+            LRParserWrapper parser = new LRParserWrapper(grammar, mode);
+            assertEquals(mode.toString(), Status.REJECTED, parser.parse(""));
+            assertEquals(mode.toString(), Status.ACCEPTED, parser.parse("b"));
+        }
+    }
+
+    @Test
+    public void longReductionChainsAreNotLoops() throws Exception {
+        GrammarWrapper grammar = TestGrammars.write(folder,
+                "L",
+                "a",
+                "L : aL | a",
+                "L");
+        StringBuilder input = new StringBuilder();
+        for(int i = 0; i < 20 * ParseEngine.CHECKED_AFTER; i++)
+            input.append("a ");
+        for(TableMode mode: TableMode.values())
+            assertEquals(mode.toString(), Status.ACCEPTED, new LRParserWrapper(grammar, mode).parse(input.toString()));
+    }
+}
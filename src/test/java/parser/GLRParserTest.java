@@ -0,0 +1,131 @@
+package parser;
+
+import constants.Status;
+import constants.TableMode;
+import grammar.GrammarWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class GLRParserTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void ambiguousGrammar() throws Exception {
+        GrammarWrapper grammar = TestGrammars.write(folder,
+                "E",
+                "id + *",
+                "E : E+E | E*E | id",
+                "E");
+        assertFalse(new GLRParserWrapper(grammar).getConflicts().isEmpty());
+        assertLanguage(grammar, 7);
+    }
+
+    @Test
+    public void danglingElse() throws Exception {
+        assertLanguage(TestGrammars.write(folder,
+                "S E",
+                "if then else x c",
+                "S : if E then S | if E then S else S | x",
+                "E : c",
+                "S"), 6);
+    }
+
+    @Test
+    public void notLR1() throws Exception {
+        assertLanguage(TestGrammars.write(folder,
+                "S",
+                "a b",
+                "S : a S a | b S b | a | b | ",
+                "S"), 10);
+        assertLanguage(TestGrammars.write(folder,
+                "S A B C",
+                "a b c x",
+                "S : A a b | B a c | C S b | x",
+                "A : x",
+                "B : x",
+                "C : | C",
+                "S"), 6);
+    }
+
+    @Test
+    public void emptyAndHiddenLeftRecursion() throws Exception {
+        assertLanguage(TestGrammars.write(folder,
+                "S",
+                "a b",
+                "S : SS | aSb | a | ",
+                "S"), 10);
+        assertLanguage(TestGrammars.write(folder,
+                "S A",
+                "a b",
+                "S : ASb | SAa | b",
+                "A : | Aa",
+                "S"), 10);
+    }
+
+    @Test(timeout = 10000)
+    public void emptyReductionJumpingBackToItsState() throws Exception {
+        //in SLR mode, N is reduced on $ in the state jumped to on N, which the deterministic parse repeats forever
+        GrammarWrapper grammar = TestGrammars.write(folder,
+                "S N E M",
+                "a b c",
+                "S : NEc | b | bN",
+                "N : ",
+                "E : Ma",
+                "M : S",
+                "S");
+        GLRParserWrapper parser = new GLRParserWrapper(grammar, TableMode.SLR);
+        assertEquals(Status.REJECTED, parser.parse(""));
+        assertEquals(Status.ACCEPTED, parser.parse("b a c"));
+        assertLanguage(grammar, 6);
+    }
+
+    @Test(timeout = 10000)
+    public void cyclicGrammar() throws Exception {
+        assertLanguage(TestGrammars.write(folder,
+                "S A",
+                "a c",
+                "S :  | AA",
+                "A : S | cAa",
+                "S"), 8);
+    }
+
+    @Test(timeout = 30000)
+    public void longAmbiguousInput() throws Exception {
+        GLRParserWrapper parser = new GLRParserWrapper(TestGrammars.write(folder,
+                "E",
+                "id + *",
+                "E : E+E | E*E | id",
+                "E"));
+        StringBuilder input = new StringBuilder("id");
+        for(int i = 0; i < 200; i++)
+            input.append(i % 2 == 0 ? " + id" : " * id");
+        assertEquals(Status.ACCEPTED, parser.parse(input.toString()));
+        assertEquals(Status.REJECTED, parser.parse(input + " +"));
+    }
+
+    /** Checks that the parsers of every mode accept the inputs of up to <code>length</code> tokens of the
+     * language of the grammar, and only them, from a String and from a Reader.
+     */
+    private static void assertLanguage(GrammarWrapper grammar, int length) throws Exception {
+        Earley earley = new Earley(grammar.getGrammar());
+        List<List<String>> inputs = TestGrammars.inputs(grammar, length);
+        for(TableMode mode: TableMode.values()){
+            GLRParserWrapper parser = new GLRParserWrapper(grammar, mode);
+            for(List<String> tokens: inputs){
+                Status expected = earley.accepts(tokens) ? Status.ACCEPTED : Status.REJECTED;
+                String input = String.join(" ", tokens);
+                assertEquals(mode + " '" + input + "'", expected, parser.parse(input));
+                assertEquals(mode + " '" + input + "'", expected, parser.parse(new StringReader(input)));
+            }
+        }
+    }
+}
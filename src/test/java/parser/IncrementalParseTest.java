@@ -0,0 +1,114 @@
+package parser;
+
+import constants.Status;
+import constants.TableMode;
+import grammar.GrammarWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalParseTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void editsGiveTheStatusOfAFullParse() throws Exception {
+        assertEditsMatchFullParses(TestGrammars.write(folder,
+                "E T F",
+                "id + - * ( )",
+                "E : E+T | T | E-T",
+                "T : T*F | F",
+                "F : (E) | id | -(E)",
+                "E"), List.of("id + id * ( id - id )", "- ( id ) * id", "id"));
+        //terminals prefixing each other, so lexing a token reads past its end
+        assertEditsMatchFullParses(TestGrammars.write(folder,
+                "S",
+                "a ab abc = ==",
+                "S : aS | abS | abcS | = | ==",
+                "S"), List.of("a ab abc =", "a ab ==", "abc abc abc ="));
+    }
+
+    @Test
+    public void editsOnlyReparseAroundThem() throws Exception {
+        LRParserWrapper parser = new LRParserWrapper(TestGrammars.write(folder,
+                "E T F",
+                "id + - * ( )",
+                "E : E+T | T | E-T",
+                "T : T*F | F",
+                "F : (E) | id | -(E)",
+                "E"));
+        StringBuilder text = new StringBuilder("id");
+        for(int i = 0; i < 10_000; i++)
+            text.append(i % 5 == 0 ? " * ( id - id )" : " + id");
+        IncrementalParse document = parser.parseIncrementally(text.toString());
+        assertEquals(Status.ACCEPTED, document.getStatus());
+        int offset = text.indexOf("+ id", text.length() / 2) + 4;
+        for(String typed: new String[]{" ", "*", " ", "i", "d"}){
+            document.edit(offset, 0, typed);
+            offset += typed.length();
+            assertTrue(document.getReparsedTokens() + " tokens reparsed", document.getReparsedTokens() < 10);
+        }
+        assertEquals(Status.ACCEPTED, document.getStatus());
+        document.edit(offset, 0, " +");
+        assertEquals(Status.REJECTED, document.getStatus());
+        document.edit(offset, 2, "");
+        assertEquals(Status.ACCEPTED, document.getStatus());
+        assertTrue(document.getReparsedTokens() + " tokens reparsed", document.getReparsedTokens() < 10);
+    }
+
+    @Test(timeout = 10000)
+    public void endlessReductionsReject() throws Exception {
+        GrammarWrapper grammar = TestGrammars.write(folder,
+                "S A",
+                "a c",
+                "S :  | AA",
+                "A : S | cAa",
+                "S");
+        for(TableMode mode: TableMode.values()){
+            IncrementalParse document = new LRParserWrapper(grammar, mode).parseIncrementally("c");
+            assertEquals(mode.toString(), Status.REJECTED, document.edit(1, 0, " a a"));
+            assertEquals(mode.toString(), Status.REJECTED, document.edit(0, 1, ""));
+        }
+    }
+
+    /** Applies random edits to documents starting as one of <code>seeds</code>, checking the text and the
+     * status of the document after every one of them against a full parse.
+     */
+    private static void assertEditsMatchFullParses(GrammarWrapper grammar, List<String> seeds){
+        LRParserWrapper parser = new LRParserWrapper(grammar);
+        List<String> terminals = new ArrayList<>(grammar.getGrammar().terminals);
+        Random random = new Random(7);
+        for(int round = 0; round < 50; round++){
+            StringBuilder text = new StringBuilder(seeds.get(random.nextInt(seeds.size())));
+            IncrementalParse document = parser.parseIncrementally(text.toString());
+            assertEquals(parser.parse(text.toString()), document.getStatus());
+            for(int edit = 0; edit < 100; edit++){
+                int offset = random.nextInt(text.length() + 1);
+                int removed = random.nextInt(4) == 0 ? random.nextInt(Math.min(6, text.length() - offset) + 1) : 0;
+                String inserted = switch(random.nextInt(4)) {
+                    case 0 -> " ";
+                    case 1 -> terminals.get(random.nextInt(terminals.size()));
+                    case 2 -> " " + terminals.get(random.nextInt(terminals.size())) + " ";
+                    default -> removed == 0 ? "i" : "";
+                };
+                text.replace(offset, offset + removed, inserted);
+                Status status = document.edit(offset, removed, inserted);
+                assertEquals(text.toString(), document.getText());
+                assertEquals("'" + text + "'", parser.parse(text.toString()), status);
+                if(random.nextInt(30) == 0){
+                    String seed = seeds.get(random.nextInt(seeds.size()));
+                    assertEquals(parser.parse(seed), document.edit(0, text.length(), seed));
+                    text.replace(0, text.length(), seed);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package parser;
+
+import constants.Status;
+import constants.TableMode;
+import grammar.GrammarWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class LazyTableTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void lazyParsersAcceptTheSameInputs() throws Exception {
+        GrammarWrapper grammar = statements();
+        for(TableMode mode: new TableMode[]{TableMode.SLR, TableMode.LR1}){
+            LRParserWrapper eager = new LRParserWrapper(grammar, mode);
+            LRParserWrapper lazy = new LRParserWrapper(grammar, mode, true);
+            for(List<String> tokens: TestGrammars.inputs(grammar, 4)){
+                String input = String.join(" ", tokens);
+                assertEquals(mode + " '" + input + "'", eager.parse(input), lazy.parse(input));
+            }
+        }
+    }
+
+    @Test
+    public void statesAreBuiltWhenReached() throws Exception {
+        GrammarWrapper grammar = statements();
+        LRParserWrapper eager = new LRParserWrapper(grammar, TableMode.SLR);
+        LRParserWrapper lazy = new LRParserWrapper(grammar, TableMode.SLR, true);
+        assertEquals(Status.ACCEPTED, lazy.parse("x = id ;"));
+        int built = lazy.getBuiltStates();
+        assertTrue(built + " of " + eager.getBuiltStates() + " states built",
+                built < eager.getBuiltStates());
+        assertEquals(Status.ACCEPTED, lazy.parse("x = id ;"));
+        assertEquals(built, lazy.getBuiltStates());
+        //completing the table builds the states of the eager parser, numbered in the order they were reached
+        assertEquals(eager.getParserTable().size(), lazy.getParserTable().size());
+        assertEquals(eager.getBuiltStates(), lazy.getBuiltStates());
+    }
+
+    @Test
+    public void lalrTablesCantBeLazy() throws Exception {
+        GrammarWrapper grammar = statements();
+        assertThrows(IllegalArgumentException.class, () -> new LRParserWrapper(grammar, TableMode.LALR, true));
+    }
+
+    @Test
+    public void threadsShareTheStatesTheyBuild() throws Exception {
+        GrammarWrapper grammar = statements();
+        LRParserWrapper eager = new LRParserWrapper(grammar, TableMode.LR1);
+        LRParserWrapper lazy = new LRParserWrapper(grammar, TableMode.LR1, true);
+        List<List<String>> inputs = TestGrammars.inputs(grammar, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> threads = new ArrayList<>();
+            for(int thread = 0; thread < 8; thread++){
+                int first = thread;
+                threads.add(executor.submit(() -> {
+                    for(int i = first; i < inputs.size(); i += 3){
+                        String input = String.join(" ", inputs.get(i));
+                        assertEquals(input, eager.parse(input), lazy.parse(input));
+                    }
+                }));
+            }
+            for(Future<?> thread: threads)
+                thread.get();
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private GrammarWrapper statements() throws Exception {
+        return TestGrammars.write(folder,
+                "P S E T F",
+                "x = ; while do end print id + * ( )",
+                "P : S | PS",
+                "S : x=E; | while E do P end | print E ;",
+                "E : E+T | T",
+                "T : T*F | F",
+                "F : (E) | id | x",
+                "P");
+    }
+}
@@ -0,0 +1,88 @@
+package parser;
+
+import constants.Status;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParseAllTest {
+
+    private static final String[] TOKENS = {"id", "+", "-", "*", "(", ")"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parseAllKeepsTheOrderOfTheInputs() throws Exception {
+        LRParserWrapper parser = expressions();
+        List<String> inputs = inputs(20_000);
+        List<Status> expected = new ArrayList<>();
+        for(String input: inputs)
+            expected.add(parser.parse(input));
+        assertEquals(expected, parser.parseAll(inputs));
+        assertEquals(expected, parser.parseAll(inputs.stream()).toList());
+    }
+
+    @Test
+    public void oneParserServesEveryThread() throws Exception {
+        LRParserWrapper parser = expressions();
+        List<String> inputs = inputs(5_000);
+        List<Status> expected = new ArrayList<>();
+        for(String input: inputs)
+            expected.add(parser.parse(input));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Status>>> results = new ArrayList<>();
+            for(int thread = 0; thread < 8; thread++)
+                results.add(executor.submit(() -> {
+                    List<Status> statuses = new ArrayList<>();
+                    for(String input: inputs)
+                        statuses.add(parser.parse(input));
+                    return statuses;
+                }));
+            for(Future<List<Status>> result: results)
+                assertEquals(expected, result.get());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private LRParserWrapper expressions() throws Exception {
+        return new LRParserWrapper(TestGrammars.write(folder,
+                "E T F",
+                "id + - * ( )",
+                "E : E+T | T | E-T",
+                "T : T*F | F",
+                "F : (E) | id | -(E)",
+                "E"));
+    }
+
+    /** @return random inputs, valid ones being made of the tokens of valid expressions */
+    static List<String> inputs(int count){
+        Random random = new Random(count);
+        List<String> inputs = new ArrayList<>();
+        for(int i = 0; i < count; i++){
+            StringBuilder input = new StringBuilder();
+            if(random.nextBoolean()){
+                input.append("id");
+                for(int terms = random.nextInt(10); terms > 0; terms--)
+                    input.append(random.nextBoolean() ? " + ( id * id )" : " - id");
+            }
+            else
+                for(int tokens = random.nextInt(8); tokens > 0; tokens--)
+                    input.append(TOKENS[random.nextInt(TOKENS.length)]).append(' ');
+            inputs.add(input.toString());
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,66 @@
+package parser;
+
+import constants.Status;
+import grammar.GrammarWrapper;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParseEngineAllocationTest {
+
+    /** Bytes a parse may allocate whatever the input's length: the engine, its first stack, the lexer */
+    private static final long FIXED = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parsingDoesNotAllocatePerToken() throws Exception {
+        com.sun.management.ThreadMXBean threads = threads();
+        LRParserWrapper parser = new LRParserWrapper(TestGrammars.write(folder,
+                "E T F",
+                "id + - * ( )",
+                "E : E+T | T | E-T",
+                "T : T*F | F",
+                "F : (E) | id | -(E)",
+                "E"));
+        String shorter = input(100);
+        String longer = input(100_000);
+        long shorterBytes = 0;
+        long longerBytes = 0;
+        //the first parses allocate while the JIT compiles the parser, the last ones are measured
+        for(int i = 0; i < 20; i++){
+            long before = threads.getCurrentThreadAllocatedBytes();
+            assertEquals(Status.ACCEPTED, parser.parse(shorter));
+            long between = threads.getCurrentThreadAllocatedBytes();
+            assertEquals(Status.ACCEPTED, parser.parse(longer));
+            long after = threads.getCurrentThreadAllocatedBytes();
+            shorterBytes = between - before;
+            longerBytes = after - between;
+        }
+        assertTrue("a parse of 100 tokens allocated " + shorterBytes + " bytes", shorterBytes < FIXED);
+        assertTrue("a parse of 100000 tokens allocated " + longerBytes + " bytes, " + shorterBytes + " for 100 tokens",
+                longerBytes < shorterBytes + FIXED);
+    }
+
+    private static com.sun.management.ThreadMXBean threads(){
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        return threads;
+    }
+
+    /** @return a flat expression of <code>terms</code> terms */
+    private static String input(int terms){
+        StringBuilder input = new StringBuilder("id");
+        for(int i = 1; i < terms; i++)
+            input.append(i % 2 == 0 ? " + id" : " * id");
+        return input.toString();
+    }
+}
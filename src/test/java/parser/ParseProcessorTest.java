@@ -0,0 +1,232 @@
+package parser;
+
+import constants.Status;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParseProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutorService executor;
+
+    private LRParserWrapper parser;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        parser = new LRParserWrapper(TestGrammars.write(folder,
+                "E T F",
+                "id + - * ( )",
+                "E : E+T | T | E-T",
+                "T : T*F | F",
+                "F : (E) | id | -(E)",
+                "E"));
+    }
+
+    @After
+    public void tearDown(){
+        executor.shutdown();
+    }
+
+    @Test
+    public void parseAsyncCompletesWithTheStatus() throws Exception {
+        assertEquals(Status.ACCEPTED, parser.parseAsync("id + id").get(10, TimeUnit.SECONDS));
+        assertEquals(Status.REJECTED, parser.parseAsync("id +", executor).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 60000)
+    public void statusesComeInTheOrderOfTheInputs() throws Exception {
+        List<String> inputs = ParseAllTest.inputs(20_000);
+        List<Status> expected = new ArrayList<>();
+        for(String input: inputs)
+            expected.add(parser.parse(input));
+        for(int capacity: new int[]{1, 16, 256})
+            for(long batch: new long[]{1, 7, Long.MAX_VALUE}){
+                SubmissionPublisher<String> publisher = new SubmissionPublisher<>(executor, 32);
+                ParseProcessor processor = new ParseProcessor(parser, executor, capacity);
+                publisher.subscribe(processor);
+                Collector collector = new Collector(batch);
+                processor.subscribe(collector);
+                for(String input: inputs)
+                    publisher.submit(input);
+                publisher.close();
+                collector.done.get(30, TimeUnit.SECONDS);
+                assertEquals("capacity " + capacity + ", requests of " + batch, expected, collector.statuses);
+            }
+    }
+
+    @Test(timeout = 60000)
+    public void upstreamDemandStaysWithinCapacity() throws Exception {
+        List<String> inputs = ParseAllTest.inputs(5_000);
+        int capacity = 8;
+        CountingPublisher publisher = new CountingPublisher(inputs);
+        ParseProcessor processor = new ParseProcessor(parser, executor, capacity);
+        publisher.subscribe(processor);
+        Collector collector = new Collector(Long.MAX_VALUE);
+        processor.subscribe(collector);
+        collector.done.get(30, TimeUnit.SECONDS);
+        assertEquals(inputs.size(), collector.statuses.size());
+        assertTrue("the processor requested " + publisher.mostAhead.get() + " inputs ahead",
+                publisher.mostAhead.get() <= capacity);
+    }
+
+    @Test(timeout = 60000)
+    public void cancellingCancelsUpstream() throws Exception {
+        SubmissionPublisher<String> publisher = new SubmissionPublisher<>(executor, 32);
+        ParseProcessor processor = new ParseProcessor(parser, executor, 4);
+        publisher.subscribe(processor);
+        CompletableFuture<Void> tenth = new CompletableFuture<>();
+        processor.subscribe(new Flow.Subscriber<Status>() {
+            private Flow.Subscription subscription;
+            private int received;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Status status) {
+                if(++received == 10){
+                    subscription.cancel();
+                    tenth.complete(null);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        for(int i = 0; i < 10; i++)
+            publisher.submit("id");
+        tenth.get(30, TimeUnit.SECONDS);
+        while(publisher.getNumberOfSubscribers() > 0)
+            Thread.sleep(10);
+        publisher.close();
+    }
+
+    @Test(timeout = 60000)
+    public void nonPositiveRequestsFail() throws Exception {
+        SubmissionPublisher<String> publisher = new SubmissionPublisher<>(executor, 32);
+        ParseProcessor processor = new ParseProcessor(parser, executor, 4);
+        publisher.subscribe(processor);
+        Collector collector = new Collector(0);
+        processor.subscribe(collector);
+        publisher.submit("id");
+        assertEquals(IllegalArgumentException.class, collector.done.handle((done, failure) -> failure.getClass())
+                .get(30, TimeUnit.SECONDS));
+        publisher.close();
+    }
+
+    /** Collects the statuses, requesting them <code>batch</code> at a time */
+    private static final class Collector implements Flow.Subscriber<Status> {
+
+        final List<Status> statuses = Collections.synchronizedList(new ArrayList<>());
+
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private final long batch;
+
+        private Flow.Subscription subscription;
+
+        private long left;
+
+        Collector(long batch){
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            left = batch;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(Status status) {
+            statuses.add(status);
+            if(batch != Long.MAX_VALUE && --left == 0){
+                left = batch;
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+
+    /** Publishes the inputs as they are requested, on a thread of its own, recording how far the requests
+     * went ahead of the inputs sent
+     */
+    private static final class CountingPublisher implements Flow.Publisher<String> {
+
+        final AtomicLong mostAhead = new AtomicLong();
+
+        private final List<String> inputs;
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private final AtomicLong sent = new AtomicLong();
+
+        CountingPublisher(List<String> inputs){
+            this.inputs = inputs;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super String> subscriber) {
+            Thread thread = new Thread(() -> {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                        long ahead = requested.addAndGet(n) - sent.get();
+                        mostAhead.accumulateAndGet(ahead, Math::max);
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                for(String input: inputs){
+                    while(sent.get() == requested.get())
+                        Thread.onSpinWait();
+                    sent.incrementAndGet();
+                    subscriber.onNext(input);
+                }
+                subscriber.onComplete();
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+}
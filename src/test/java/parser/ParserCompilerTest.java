@@ -0,0 +1,88 @@
+package parser;
+
+import constants.Status;
+import constants.TableMode;
+import grammar.GrammarWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ParserCompilerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 30000)
+    public void endlessReductionsReject() throws Exception {
+        GrammarWrapper grammar = TestGrammars.write(folder,
+                "S A",
+                "a c",
+                "S :  | AA",
+                "A : S | cAa",
+                "S");
+        for(TableMode mode: TableMode.values()){
+            LRParserWrapper interpreted = new LRParserWrapper(grammar, mode);
+            Parser compiled = interpreted.compile();
+            assertNotSame(interpreted, compiled);
+            assertEquals(mode.toString(), Status.REJECTED, compiled.parse("a"));
+            assertEquals(mode.toString(), Status.REJECTED, compiled.parse("c a a"));
+        }
+    }
+
+    @Test
+    public void compiledParsersGiveTheInterpretersStatuses() throws Exception {
+        GrammarWrapper grammar = TestGrammars.write(folder,
+                "P S E T F",
+                "x = ; while do end print id + * ( )",
+                "P : S | PS",
+                "S : x=E; | while E do P end | print E ;",
+                "E : E+T | T",
+                "T : T*F | F",
+                "F : (E) | id | x",
+                "P");
+        for(TableMode mode: TableMode.values()){
+            LRParserWrapper interpreted = new LRParserWrapper(grammar, mode);
+            Parser compiled = interpreted.compile();
+            assertNotSame(interpreted, compiled);
+            for(List<String> tokens: TestGrammars.inputs(grammar, 4)){
+                String input = String.join(" ", tokens);
+                assertEquals(mode + " '" + input + "'", interpreted.parse(input), compiled.parse(input));
+            }
+            for(String input: new String[]{"x = id ; while x do print ( id + x ) * id ; end", "?", "x = ?", "  ", null})
+                assertEquals(mode + " '" + input + "'", interpreted.parse(input), compiled.parse(input));
+        }
+    }
+
+    @Test
+    public void largeTablesAreInterpreted() throws Exception {
+        StringBuilder terminals = new StringBuilder();
+        StringBuilder alternatives = new StringBuilder();
+        for(int i = 0; i < 100; i++){
+            terminals.append(i == 0 ? "" : " ").append("a").append(i).append(" b").append(i);
+            alternatives.append(i == 0 ? "" : " | ").append("a").append(i).append(" b").append(i).append(" b").append(i);
+        }
+        LRParserWrapper interpreted = new LRParserWrapper(TestGrammars.write(folder,
+                "S",
+                terminals.toString(),
+                "S : " + alternatives,
+                "S"));
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try {
+            assertSame(interpreted, interpreted.compile());
+        } finally {
+            System.setOut(out);
+        }
+        assertEquals("too large isn't a failure", "", printed.toString());
+        assertEquals(Status.ACCEPTED, interpreted.parse("a42 b42 b42"));
+    }
+}
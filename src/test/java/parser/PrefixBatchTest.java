@@ -0,0 +1,100 @@
+package parser;
+
+import constants.Status;
+import grammar.GrammarWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrefixBatchTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sharedPrefixesGiveTheStatusesOfSeparateParses() throws Exception {
+        assertBatchMatchesParses(TestGrammars.write(folder,
+                "E T F",
+                "id + - * ( )",
+                "E : E+T | T | E-T",
+                "T : T*F | F",
+                "F : (E) | id | -(E)",
+                "E"), List.of("id + id * ( id - id ) + id * id", "- ( id ) * id - id", "id"));
+        //terminals prefixing each other, so lexing a token reads past its end
+        assertBatchMatchesParses(TestGrammars.write(folder,
+                "S",
+                "a ab abc = ==",
+                "S : aS | abS | abcS | = | ==",
+                "S"), List.of("a ab abc a ab =", "a ab ==", "abc abc ="));
+    }
+
+    @Test
+    public void emptyAndSingleBatches() throws Exception {
+        LRParserWrapper parser = new LRParserWrapper(TestGrammars.write(folder,
+                "S",
+                "a b",
+                "S : aSb | ",
+                "S"));
+        assertEquals(List.of(), parser.parseAllSharingPrefixes(List.of()));
+        assertEquals(List.of(Status.ACCEPTED), parser.parseAllSharingPrefixes(List.of("a a b b")));
+        List<String> same = new ArrayList<>();
+        for(int i = 0; i < 100; i++)
+            same.add(i % 2 == 0 ? "a a a b b b" : "a a a b b");
+        List<Status> statuses = parser.parseAllSharingPrefixes(same);
+        for(int i = 0; i < same.size(); i++)
+            assertEquals(i % 2 == 0 ? Status.ACCEPTED : Status.REJECTED, statuses.get(i));
+    }
+
+    @Test(timeout = 10000)
+    public void endlessReductionsReject() throws Exception {
+        LRParserWrapper parser = new LRParserWrapper(TestGrammars.write(folder,
+                "S A",
+                "a c",
+                "S :  | AA",
+                "A : S | cAa",
+                "S"));
+        List<String> inputs = List.of("a", "c a", "c a a", "c c a a", "c c a a a");
+        List<Status> statuses = parser.parseAllSharingPrefixes(inputs);
+        for(int i = 0; i < inputs.size(); i++)
+            assertEquals(inputs.get(i), parser.parse(inputs.get(i)), statuses.get(i));
+        assertEquals(Status.REJECTED, statuses.get(2));
+    }
+
+    /** Parses a batch of inputs cut from <code>seeds</code> and given other ends, null inputs and every short
+     * sentence of terminals included, checking the statuses against separate parses.
+     */
+    private static void assertBatchMatchesParses(GrammarWrapper grammar, List<String> seeds){
+        LRParserWrapper parser = new LRParserWrapper(grammar);
+        List<String> terminals = new ArrayList<>(grammar.getGrammar().terminals);
+        Random random = new Random(3);
+        List<String> inputs = new ArrayList<>();
+        for(int i = 0; i < 10_000; i++){
+            String seed = seeds.get(random.nextInt(seeds.size()));
+            int cut = random.nextInt(seed.length() + 1);
+            StringBuilder input = new StringBuilder(seed.substring(0, cut));
+            for(int tail = random.nextInt(6); tail > 0; tail--){
+                int spacing = random.nextInt(3);
+                if(spacing == 0)
+                    input.append(' ');
+                input.append(terminals.get(random.nextInt(terminals.size())));
+                if(spacing != 2)
+                    input.append(' ');
+            }
+            if(random.nextInt(3) == 0)
+                input.append(seed.substring(cut));
+            inputs.add(random.nextInt(500) == 0 ? null : input.toString());
+        }
+        for(List<String> tokens: TestGrammars.inputs(grammar, 4))
+            inputs.add(String.join(" ", tokens));
+        List<Status> statuses = parser.parseAllSharingPrefixes(inputs);
+        assertEquals(inputs.size(), statuses.size());
+        for(int i = 0; i < inputs.size(); i++)
+            assertEquals("'" + inputs.get(i) + "'", parser.parse(inputs.get(i)), statuses.get(i));
+    }
+}
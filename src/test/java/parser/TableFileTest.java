@@ -0,0 +1,114 @@
+package parser;
+
+import constants.TableMode;
+import grammar.GrammarWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class TableFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void tablesAreLoadedByTheirHeaderAndVerifiedOnRequest() throws Exception {
+        Path table = table();
+        TableFile.verify(table);
+        byte[] bytes = Files.readAllBytes(table);
+        ParseTable loaded = TableFile.map(table, null);
+        int state = loaded.states() - 1;
+        int column = loaded.width() - 1;
+
+        //loading doesn't read the rows, a damaged cell is found by verifying or when it's read
+        for(int cell: new int[]{Integer.reverse(loaded.get(state, column) | 1), Action.conflict(0),
+                Action.reduce(loaded.productions()), Action.shift(loaded.states()), Action.ACCEPT | 8, 6, 7}){
+            byte[] damaged = bytes.clone();
+            ByteBuffer.wrap(damaged).order(ByteOrder.LITTLE_ENDIAN).putInt(damaged.length - 4, cell);
+            Files.write(table, damaged);
+            ParseTable mapped = TableFile.map(table, null);
+            assertEquals(loaded.states(), mapped.states());
+            assertThrows(IOException.class, () -> TableFile.verify(table));
+            IllegalStateException error = assertThrows(IllegalStateException.class, () -> mapped.get(state, column));
+            assertTrue(error.getMessage(), error.getMessage().startsWith(table + " is corrupted"));
+        }
+        Files.write(table, bytes);
+
+        Files.write(table, Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IOException.class, () -> TableFile.map(table, null));
+        Files.write(table, Arrays.copyOf(bytes, bytes.length + 4));
+        assertThrows(IOException.class, () -> TableFile.map(table, null));
+    }
+
+    @Test
+    public void damagedCachedTablesAreRebuiltWhenVerified() throws Exception {
+        Path cache = folder.newFolder("cache").toPath();
+        GrammarWrapper grammar = new GrammarWrapper(grammar().toString());
+        LRParserWrapper built = new LRParserWrapper(grammar, TableMode.LALR, cache, true);
+        Path cached;
+        try(var files = Files.list(cache)){
+            cached = files.findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(cached);
+        //a shift becoming another valid shift, only found by the checksum
+        ByteBuffer rows = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int offset = bytes.length - 4;
+        while(Action.kind(rows.getInt(offset)) != Action.SHIFT)
+            offset -= 4;
+        rows.putInt(offset, Action.shift(Action.operand(rows.getInt(offset)) == 0 ? 1 : 0));
+        Files.write(cached, bytes);
+
+        assertThrows(IOException.class, () -> TableFile.verify(cached));
+        LRParserWrapper verified = new LRParserWrapper(grammar, TableMode.LALR, cache, true);
+        TableFile.verify(cached);
+        for(List<String> tokens: TestGrammars.inputs(grammar, 4)){
+            String input = String.join(" ", tokens);
+            assertEquals(input, built.parse(input), verified.parse(input));
+        }
+    }
+
+    @Test
+    public void damagedHeadersFailToLoad() throws Exception {
+        Path table = table();
+        byte[] bytes = Files.readAllBytes(table);
+        //the counts of symbols and of productions, then the length of the first symbol
+        int symbolOffset = 64 + 8 * ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt(24);
+        for(int offset: new int[]{16, 24, symbolOffset})
+            for(int value: new int[]{-1, Integer.MAX_VALUE, 1 << 20}){
+                byte[] damaged = bytes.clone();
+                ByteBuffer.wrap(damaged).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+                Files.write(table, damaged);
+                assertThrows(offset + " = " + value, IOException.class, () -> TableFile.map(table, null));
+                assertThrows(offset + " = " + value, IOException.class, () -> TableFile.read(new ByteArrayInputStream(damaged), "table"));
+            }
+    }
+
+    private Path table() throws Exception {
+        return TableGenerator.generate(grammar().toString(), TableMode.LALR, folder.getRoot().toPath());
+    }
+
+    private Path grammar() throws Exception {
+        Path grammar = folder.newFile("expressions.in").toPath();
+        Files.write(grammar, List.of(
+                "E T F",
+                "id + * ( )",
+                "E : E+T | T",
+                "T : T*F | F",
+                "F : (E) | id",
+                "E"));
+        return grammar;
+    }
+}
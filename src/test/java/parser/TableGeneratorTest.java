@@ -0,0 +1,63 @@
+package parser;
+
+import constants.TableMode;
+import grammar.GrammarWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class TableGeneratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void generatedTablesLoadFromTheClasspath() throws Exception {
+        File file = folder.newFile("statements.in");
+        Files.write(file.toPath(), List.of(
+                "P S E T F",
+                "x = ; while do end print id + * ( )",
+                "P : S | PS",
+                "S : x=E; | while E do P end | print E ;",
+                "E : E+T | T",
+                "T : T*F | F",
+                "F : (E) | id | x",
+                "P"));
+        GrammarWrapper grammar = new GrammarWrapper(file.getPath());
+        Path classes = folder.newFolder("classes").toPath();
+        for(TableMode mode: TableMode.values()){
+            Path table = TableGenerator.generate(file.getPath(), mode, classes.resolve("tables"));
+            assertEquals(classes.resolve("tables").resolve("statements.lrt"), table);
+            LRParserWrapper built = new LRParserWrapper(grammar, mode);
+            LRParserWrapper loaded;
+            try(URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, null)){
+                loaded = LRParserWrapper.fromClasspath(loader, "tables/" + table.getFileName());
+            }
+            for(List<String> tokens: TestGrammars.inputs(grammar, 4)){
+                String input = String.join(" ", tokens);
+                assertEquals(mode + " '" + input + "'", built.parse(input), loaded.parse(input));
+            }
+            Files.delete(table);
+        }
+    }
+
+    @Test
+    public void missingTablesAndGrammarsThrow() throws Exception {
+        try(URLClassLoader loader = new URLClassLoader(new URL[]{folder.getRoot().toURI().toURL()}, null)){
+            assertThrows(FileNotFoundException.class, () -> LRParserWrapper.fromClasspath(loader, "missing.lrt"));
+        }
+        assertThrows(FileNotFoundException.class, () -> TableGenerator.generate(
+                folder.getRoot().toPath().resolve("missing.in").toString(), TableMode.LALR, folder.getRoot().toPath()));
+    }
+}
@@ -0,0 +1,130 @@
+package parser;
+
+import constants.Status;
+import constants.TableFormat;
+import constants.TableMode;
+import grammar.GrammarWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TableModeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void slrGrammarParsesTheSameInEveryMode() throws Exception {
+        GrammarWrapper grammar = TestGrammars.write(folder,
+                "E T F",
+                "id + - * ( )",
+                "E : E+T | T | E-T",
+                "T : T*F | F",
+                "F : (E) | id | -(E)",
+                "E");
+        for(TableMode mode: TableMode.values())
+            assertLanguage(grammar, mode, 5);
+    }
+
+    @Test
+    public void storedTablesAreOnlyLookedUpInTheirMode() throws Exception {
+        GrammarWrapper grammar = TestGrammars.write(folder,
+                "E T F",
+                "id + * ( )",
+                "E : E+T | T",
+                "T : T*F | F",
+                "F : (E) | id",
+                "E");
+        String base = grammar.getGrammar().getFileName();
+        for(TableMode mode: TableMode.values()){
+            new LRParserWrapper(grammar, mode).storeParserTable();
+            new LRParserWrapper(grammar, mode).storeParserTable(TableFormat.BINARY);
+        }
+        for(String suffix: List.of("", ".slr", ".lr1"))
+            for(String extension: List.of(".out", ".lrt"))
+                assertTrue(base + suffix + extension, new File(base + suffix + extension).isFile());
+
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try {
+            for(TableMode mode: TableMode.values())
+                assertLanguage(grammar, mode, 4);
+        } finally {
+            System.setOut(out);
+        }
+        assertEquals("", printed.toString());
+    }
+
+    @Test
+    public void lalrGrammarConflictsInSlrMode() throws Exception {
+        GrammarWrapper grammar = TestGrammars.write(folder,
+                "S L R",
+                "= * id",
+                "S : L=R | R",
+                "L : *R | id",
+                "R : L",
+                "S");
+        List<String> conflicts = new LRParserWrapper(grammar, TableMode.SLR).getConflicts();
+        assertEquals(1, conflicts.size());
+        assertTrue(conflicts.get(0), conflicts.get(0).matches("State \\d+, on =: .*, kept shift \\d+"));
+        assertLanguage(grammar, TableMode.LALR, 6);
+        assertLanguage(grammar, TableMode.LR1, 6);
+    }
+
+    @Test
+    public void lr1GrammarConflictsInLalrMode() throws Exception {
+        GrammarWrapper grammar = TestGrammars.write(folder,
+                "S A B",
+                "a b c d e",
+                "S : aAd | bBd | aBe | bAe",
+                "A : c",
+                "B : c",
+                "S");
+        assertEquals(2, new LRParserWrapper(grammar, TableMode.SLR).getConflicts().size());
+        assertEquals(2, new LRParserWrapper(grammar, TableMode.LALR).getConflicts().size());
+        assertLanguage(grammar, TableMode.LR1, 4);
+    }
+
+    @Test
+    public void conflictsAreResolvedLikeYacc() throws Exception {
+        GrammarWrapper grammar = TestGrammars.write(folder,
+                "S E",
+                "if then else x c",
+                "S : if E then S | if E then S else S | x",
+                "E : c",
+                "S");
+        for(TableMode mode: TableMode.values()){
+            LRParserWrapper parser = new LRParserWrapper(grammar, mode);
+            List<String> conflicts = parser.getConflicts();
+            assertEquals(mode.toString(), 1, conflicts.size());
+            assertTrue(conflicts.get(0), conflicts.get(0).matches("State \\d+, on else: .*, kept shift \\d+"));
+            //the else goes with the closest if
+            assertEquals(Status.ACCEPTED, parser.parse("if c then if c then x else x"));
+            assertEquals(Status.ACCEPTED, parser.parse("if c then x else if c then x else x"));
+            assertEquals(Status.REJECTED, parser.parse("if c then x else x else x"));
+        }
+    }
+
+    /** Checks that the parser of <code>mode</code> has no conflicts and accepts the inputs of up to
+     * <code>length</code> tokens of the language of the grammar, and only them.
+     */
+    private static void assertLanguage(GrammarWrapper grammar, TableMode mode, int length){
+        LRParserWrapper parser = new LRParserWrapper(grammar, mode);
+        assertEquals(mode.toString(), List.of(), parser.getConflicts());
+        Earley earley = new Earley(grammar.getGrammar());
+        for(List<String> tokens: TestGrammars.inputs(grammar, length)){
+            String input = String.join(" ", tokens);
+            assertEquals(mode + " '" + input + "'", earley.accepts(tokens) ? Status.ACCEPTED : Status.REJECTED,
+                    parser.parse(input));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package parser;
+
+import grammar.GrammarWrapper;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Grammars of the tests, written to a file since a grammar is read from one */
+final class TestGrammars {
+
+    private TestGrammars(){}
+
+    /** @param lines the lines of the grammar file: nonterminals, terminals, productions and the start symbol */
+    static GrammarWrapper write(TemporaryFolder folder, String... lines) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), Arrays.asList(lines));
+        return new GrammarWrapper(file.getPath());
+    }
+
+    /** @return every sequence of at most <code>length</code> terminals of the grammar, shortest first */
+    static List<List<String>> inputs(GrammarWrapper grammar, int length){
+        List<List<String>> inputs = new ArrayList<>();
+        inputs.add(List.of());
+        for(int from = 0, to = 1; length-- > 0; from = to, to = inputs.size())
+            for(int i = from; i < to; i++)
+                for(String terminal: grammar.getGrammar().terminals){
+                    List<String> input = new ArrayList<>(inputs.get(i));
+                    input.add(terminal);
+                    inputs.add(input);
+                }
+        return inputs;
+    }
+}
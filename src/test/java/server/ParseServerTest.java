@@ -0,0 +1,67 @@
+package server;
+
+import constants.Status;
+import org.junit.Test;
+import parser.Parser;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParseServerTest {
+
+    /** Accepts the inputs made of <code>a</code>s only */
+    private static final Parser AS = input -> input.chars().allMatch(c -> c == 'a') ? Status.ACCEPTED : Status.REJECTED;
+
+    @Test(timeout = 30000)
+    public void linesTooLongAreRejectedAndSkipped() throws Exception {
+        try(ParseServer server = new ParseServer(AS, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024, 100)){
+            StringBuilder sent = new StringBuilder();
+            List<String> expected = new ArrayList<>();
+            //lines around the limit, a line too long within a read and lines much longer than the buffer
+            for(int length: new int[]{0, 1, 99, 100, 101, 150, 5, 200_000, 3, 1_000_000, 100, 7}){
+                sent.append("a".repeat(length)).append('\n');
+                expected.add(length > 100 ? "REJECTED" : "ACCEPTED");
+            }
+            sent.append("b\n").append("a".repeat(100));
+            expected.add("REJECTED");
+            expected.add("ACCEPTED");
+            assertEquals(expected, exchange(server, sent.toString(), expected.size()));
+
+            //a last line too long, without its '\n'
+            assertEquals(List.of("ACCEPTED", "REJECTED"), exchange(server, "aa\n" + "a".repeat(300_000), 2));
+        }
+    }
+
+    private static List<String> exchange(ParseServer server, String sent, int lines) throws Exception {
+        try(Socket socket = new Socket()){
+            socket.connect(server.getAddress());
+            Thread writer = new Thread(() -> {
+                try {
+                    OutputStream out = socket.getOutputStream();
+                    out.write(sent.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    socket.shutdownOutput();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            List<String> received = new ArrayList<>();
+            for(String line = in.readLine(); line != null; line = in.readLine())
+                received.add(line);
+            writer.join();
+            assertEquals(lines, received.size());
+            return received;
+        }
+    }
+}